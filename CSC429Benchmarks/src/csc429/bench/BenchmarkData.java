@@ -0,0 +1,63 @@
+package csc429.bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * BenchmarkData creates the inputs of the benchmarks: random byte arrays and files of any size.
+ * Files repeat one random megabyte, which none of the measured algorithms can take advantage of,
+ * so even a gigabyte input is written in a couple of seconds. Everything is seeded and reproducible.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+final class BenchmarkData {
+
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
+    private BenchmarkData() {
+    }
+
+    static byte[] random(int length, long seed) {
+        byte[] data = new byte[length];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) random.nextInt(256);
+        }
+        return data;
+    }
+
+    // A new file of the given length in directory
+    static Path file(Path directory, String name, long length, long seed) throws IOException {
+        Path file = directory.resolve(name);
+        ByteBuffer block = ByteBuffer.wrap(random((int) Math.min(BLOCK_SIZE, Math.max(length, 1)), seed));
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            for (long position = 0; position < length; position += block.capacity()) {
+                block.clear().limit((int) Math.min(block.capacity(), length - position));
+                while (block.hasRemaining()) {
+                    out.write(block, position + block.position());
+                }
+            }
+        }
+        return file;
+    }
+
+    static Path directory() throws IOException {
+        return Files.createTempDirectory("csc429-bench");
+    }
+
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
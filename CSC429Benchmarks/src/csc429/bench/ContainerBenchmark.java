@@ -0,0 +1,95 @@
+package csc429.bench;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ContainerBenchmark measures random access to an EncryptedContainer: verifying and decrypting 4 KB at a
+ * random offset, which reads one or two chunks whatever the size of the container, against decrypting the
+ * whole container on every core. Both the One-Time Pad and AES-256-GCM containers use 64 KB chunks.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ContainerBenchmark {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int RANGE_LENGTH = 4096;
+
+    @Param({"67108864", "1073741824"})
+    public long size;
+
+    @Param({"OTP", "AES-256-GCM"})
+    public String algorithm;
+
+    private final int threads = Runtime.getRuntime().availableProcessors();
+    private final long[] offsets = new long[1024];
+    private int next;
+    private Path directory;
+    private Path output;
+    // an unlocked EncryptedContainer
+    private Object container;
+
+    @Setup
+    public void setUp() throws Throwable {
+        directory = BenchmarkData.directory();
+        Path input = BenchmarkData.file(directory, "input.bin", size, 1);
+        Path packed = directory.resolve("input.c429");
+        output = directory.resolve("output.bin");
+        if (algorithm.equals("OTP")) {
+            // the container also takes the 32-byte MAC key from the pad
+            Path pad = BenchmarkData.file(directory, "pad.bin", size + 32, 2);
+            long bytes = (long) Engines.PACK_PAD.invokeExact(pad, 0L, CHUNK_SIZE, input, packed, threads, Engines.NO_PROGRESS);
+            container = (Object) Engines.OPEN_CONTAINER.invokeExact(packed);
+            container = (Object) Engines.UNLOCK_PAD.invokeExact(container, pad);
+        } else {
+            Object key = (Object) Engines.RAW_KEY.invokeExact(BenchmarkData.random(32, 3));
+            long bytes = (long) Engines.PACK.invokeExact(Engines.AES_256_GCM, key, CHUNK_SIZE, input, packed, threads,
+                    Engines.NO_PROGRESS);
+            container = (Object) Engines.OPEN_CONTAINER.invokeExact(packed);
+            container = (Object) Engines.UNLOCK_KEY.invokeExact(container, key);
+        }
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = random.nextLong(size - RANGE_LENGTH);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        ((Closeable) container).close();
+        BenchmarkData.delete(directory);
+    }
+
+    @Benchmark
+    public byte[] readRange() throws Throwable {
+        long offset = offsets[next++ & (offsets.length - 1)];
+        return (byte[]) Engines.READ_RANGE.invokeExact(container, offset, RANGE_LENGTH);
+    }
+
+    @Benchmark
+    public long decryptAll() throws Throwable {
+        return (long) Engines.UNPACK.invokeExact(container, output, threads, Engines.NO_PROGRESS);
+    }
+}
@@ -0,0 +1,71 @@
+package csc429.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DigestBenchmark measures hashing and HMAC over files: each digest on its own, the GUI's default set
+ * of four digests computed in one pass ("SHA-256+SHA-512+SHA3-256+CRC32C"), and HMAC through HmacService
+ * with a key that is set up once, as the CLI does for all the files of one command.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DigestBenchmark {
+
+    @Param({"1024", "1048576", "67108864"})
+    public long size;
+
+    @Param({"SHA-256", "SHA-512", "SHA3-256", "CRC32C", "SHA-256+SHA-512+SHA3-256+CRC32C", "HmacSHA256", "HmacSHA512"})
+    public String algorithm;
+
+    private final byte[] key = BenchmarkData.random(32, 3);
+    private Object hmacKey;
+    private List<String> algorithms;
+    private Path directory;
+    private Path file;
+
+    @Setup
+    public void setUp() throws Throwable {
+        algorithms = List.of(algorithm.split("\\+"));
+        if (algorithm.startsWith("Hmac")) {
+            hmacKey = (Object) Engines.NEW_HMAC_KEY.invokeExact(algorithm, key);
+        }
+        directory = BenchmarkData.directory();
+        file = BenchmarkData.file(directory, "input.bin", size, 1);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkData.delete(directory);
+    }
+
+    @Benchmark
+    public Object checksum() throws Throwable {
+        if (algorithm.startsWith("Hmac")) {
+            return (byte[]) Engines.HMAC_FILE.invokeExact(hmacKey, file, Engines.NO_PROGRESS);
+        }
+        return (Map<?, ?>) Engines.DIGEST_FILE.invokeExact(file, algorithms);
+    }
+}
@@ -0,0 +1,159 @@
+package csc429.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import javax.swing.text.Document;
+
+/**
+ * Engines exposes the hot paths of the OTP tool to the benchmarks.
+ * The tool's classes live in the default package, which a benchmark package cannot import, so each
+ * entry point is looked up once as a static final MethodHandle. The JIT treats such handles as
+ * constants and inlines the call, so invoking them costs the same as a direct call. Types that only
+ * exist in the default package (Progress, RecordCipher.Algorithm, CipherKey, KeyManager, EncryptedContainer,
+ * HmacService.Key)
+ * are widened to Object.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+final class Engines {
+
+    private static final Class<?> PROGRESS = type("Progress");
+    private static final Class<?> ALGORITHM = type("RecordCipher$Algorithm");
+    private static final Class<?> CIPHER_KEY = type("CipherKey");
+    private static final Class<?> CONTAINER = type("EncryptedContainer");
+    private static final Class<?> HMAC_KEY = type("HmacService$Key");
+
+    // Progress.NONE, for the overloads that report progress
+    static final Object NO_PROGRESS = constant(PROGRESS, "NONE");
+    static final Object AES_256_GCM = enumConstant(ALGORITHM, "AES_256_GCM");
+    static final Object CHACHA20_POLY1305 = enumConstant(ALGORITHM, "CHACHA20_POLY1305");
+
+    // XorKernel.xor(src, srcOff, key, keyOff, dst, dstOff, len) and its scalar reference loop
+    static final MethodHandle XOR = find("XorKernel", "xor",
+            void.class, byte[].class, int.class, byte[].class, int.class, byte[].class, int.class, int.class);
+    static final MethodHandle XOR_SCALAR = find("XorKernel", "xorScalar",
+            void.class, byte[].class, int.class, byte[].class, int.class, byte[].class, int.class, int.class);
+    // OTPCipher.encrypt(plaintext, key), which allocates the ciphertext
+    static final MethodHandle OTP_ENCRYPT = find("OTPCipher", "encrypt", byte[].class, byte[].class, byte[].class);
+
+    // File to file with a pad: ParallelOTP on the common pool and the single-threaded mapped OTPFileEngine
+    static final MethodHandle PARALLEL_OTP_FILE = find("ParallelOTP", "encryptFile",
+            long.class, Path.class, Path.class, long.class, Path.class);
+    static final MethodHandle MAPPED_OTP_FILE = find("OTPFileEngine", "encryptFile",
+            long.class, Path.class, Path.class, long.class, Path.class);
+    // RecordCipher.encryptFile(algorithm, key, recordSize, input, output, threads, progress) with a CipherKey.raw key
+    static final MethodHandle RECORD_FILE = find("RecordCipher", "encryptFile",
+            long.class, ALGORITHM, CIPHER_KEY, int.class, Path.class, Path.class, int.class, PROGRESS);
+    static final MethodHandle RAW_KEY = find("CipherKey", "raw", CIPHER_KEY, byte[].class);
+
+    // EncryptedContainer.encrypt with a pad (pad, padOffset, chunkSize, input, output, threads, progress) and with
+    // an AEAD algorithm (algorithm, key, chunkSize, input, output, threads, progress)
+    static final MethodHandle PACK_PAD = find("EncryptedContainer", "encrypt",
+            long.class, Path.class, long.class, int.class, Path.class, Path.class, int.class, PROGRESS);
+    static final MethodHandle PACK = find("EncryptedContainer", "encrypt",
+            long.class, ALGORITHM, CIPHER_KEY, int.class, Path.class, Path.class, int.class, PROGRESS);
+    // EncryptedContainer.open(file), unlock(pad), unlock(key), read(offset, length) and decryptTo(output, threads, progress)
+    static final MethodHandle OPEN_CONTAINER = find("EncryptedContainer", "open", CONTAINER, Path.class);
+    static final MethodHandle UNLOCK_PAD = findVirtual("EncryptedContainer", "unlock", CONTAINER, Path.class);
+    static final MethodHandle UNLOCK_KEY = findVirtual("EncryptedContainer", "unlock", CONTAINER, CIPHER_KEY);
+    static final MethodHandle READ_RANGE = findVirtual("EncryptedContainer", "read", byte[].class, long.class, int.class);
+    static final MethodHandle UNPACK = findVirtual("EncryptedContainer", "decryptTo",
+            long.class, Path.class, int.class, PROGRESS);
+
+    // new KeyManager(capacity, ttlMillis), its derive(passphrase, salt, iterations) and clear()
+    static final MethodHandle NEW_KEY_MANAGER = constructor("KeyManager", int.class, long.class);
+    static final MethodHandle DERIVE = findVirtual("KeyManager", "derive",
+            type("KeyManager$DerivedKey"), char[].class, byte[].class, int.class);
+    static final MethodHandle CLEAR_KEYS = findVirtual("KeyManager", "clear", void.class);
+
+    // DigestEngine.digest(file, algorithms), HmacService.key(algorithm, key) and HmacService.tag(key, file, progress)
+    static final MethodHandle DIGEST_FILE = find("DigestEngine", "digest", Map.class, Path.class, List.class);
+    static final MethodHandle NEW_HMAC_KEY = find("HmacService", "key", HMAC_KEY, String.class, byte[].class);
+    static final MethodHandle HMAC_FILE = find("HmacService", "tag", byte[].class, HMAC_KEY, Path.class, PROGRESS);
+
+    // The GUI's Open File and Save File paths: SecurityOTP.readFile and both SecurityOTP.writeFile overloads
+    static final MethodHandle READ_FILE = find("SecurityOTP", "readFile", byte[].class, Path.class, PROGRESS);
+    static final MethodHandle WRITE_BYTES = find("SecurityOTP", "writeFile", void.class, Path.class, byte[].class, PROGRESS);
+    static final MethodHandle WRITE_TEXT = find("SecurityOTP", "writeFile", void.class, Path.class, Document.class, PROGRESS);
+
+    private Engines() {
+    }
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError("The OTP tool is not on the class path: " + e.getMessage());
+        }
+    }
+
+    // A static method of a tool class, private or not, with default-package parameter types widened to Object
+    private static MethodHandle find(String className, String name, Class<?> returnType, Class<?>... parameterTypes) {
+        try {
+            Class<?> owner = type(className);
+            MethodHandle handle = MethodHandles.privateLookupIn(owner, MethodHandles.lookup())
+                    .findStatic(owner, name, MethodType.methodType(returnType, parameterTypes));
+            return handle.asType(MethodType.methodType(visible(returnType), visible(parameterTypes)));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // An instance method of a tool class, taking the receiver as its first argument
+    private static MethodHandle findVirtual(String className, String name, Class<?> returnType, Class<?>... parameterTypes) {
+        try {
+            Class<?> owner = type(className);
+            MethodHandle handle = MethodHandles.privateLookupIn(owner, MethodHandles.lookup())
+                    .findVirtual(owner, name, MethodType.methodType(returnType, parameterTypes));
+            return handle.asType(MethodType.methodType(visible(returnType), visible(parameterTypes))
+                    .insertParameterTypes(0, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle constructor(String className, Class<?>... parameterTypes) {
+        try {
+            Class<?> owner = type(className);
+            MethodHandle handle = MethodHandles.privateLookupIn(owner, MethodHandles.lookup())
+                    .findConstructor(owner, MethodType.methodType(void.class, parameterTypes));
+            return handle.asType(MethodType.methodType(Object.class, visible(parameterTypes)));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static Class<?>[] visible(Class<?>[] types) {
+        Class<?>[] result = types.clone();
+        for (int i = 0; i < result.length; i++) {
+            result[i] = visible(result[i]);
+        }
+        return result;
+    }
+
+    private static Class<?> visible(Class<?> type) {
+        return type.getPackageName().isEmpty() && !type.isPrimitive() && !type.isArray() ? Object.class : type;
+    }
+
+    private static Object constant(Class<?> owner, String name) {
+        try {
+            return MethodHandles.privateLookupIn(owner, MethodHandles.lookup()).findStaticGetter(owner, name, owner).invoke();
+        } catch (Throwable e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static Object enumConstant(Class<?> type, String name) {
+        for (Object constant : type.getEnumConstants()) {
+            if (((Enum<?>) constant).name().equals(name)) {
+                return constant;
+            }
+        }
+        throw new ExceptionInInitializerError("No " + type.getName() + "." + name);
+    }
+}
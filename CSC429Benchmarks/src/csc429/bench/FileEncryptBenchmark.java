@@ -0,0 +1,82 @@
+package csc429.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FileEncryptBenchmark measures file-to-file encryption from 1 KB to 1 GB: the One-Time Pad through
+ * ParallelOTP and through the single-threaded OTPFileEngine, and both AEAD record ciphers on every core.
+ * Input, pad and output stay in the page cache once warmed up, so the numbers show the engines rather
+ * than the disk; the output file is overwritten by every invocation.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FileEncryptBenchmark {
+
+    @Param({"1024", "1048576", "67108864", "1073741824"})
+    public long size;
+
+    // a CipherKey.raw key
+    private Object key;
+    private final int threads = Runtime.getRuntime().availableProcessors();
+    private Path directory;
+    private Path input;
+    private Path pad;
+    private Path output;
+
+    @Setup
+    public void setUp() throws Throwable {
+        key = (Object) Engines.RAW_KEY.invokeExact(BenchmarkData.random(32, 3));
+        directory = BenchmarkData.directory();
+        input = BenchmarkData.file(directory, "input.bin", size, 1);
+        pad = BenchmarkData.file(directory, "pad.bin", size, 2);
+        output = directory.resolve("output.bin");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkData.delete(directory);
+    }
+
+    @Benchmark
+    public long otpParallel() throws Throwable {
+        return (long) Engines.PARALLEL_OTP_FILE.invokeExact(input, pad, 0L, output);
+    }
+
+    @Benchmark
+    public long otpMapped() throws Throwable {
+        return (long) Engines.MAPPED_OTP_FILE.invokeExact(input, pad, 0L, output);
+    }
+
+    @Benchmark
+    public long aes256Gcm() throws Throwable {
+        return (long) Engines.RECORD_FILE.invokeExact(Engines.AES_256_GCM, key, 64 * 1024, input, output, threads,
+                Engines.NO_PROGRESS);
+    }
+
+    @Benchmark
+    public long chaCha20Poly1305() throws Throwable {
+        return (long) Engines.RECORD_FILE.invokeExact(Engines.CHACHA20_POLY1305, key, 64 * 1024, input, output, threads,
+                Engines.NO_PROGRESS);
+    }
+}
@@ -0,0 +1,96 @@
+package csc429.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FileIoBenchmark measures how the GUI loads and saves whole files: Open File (SecurityOTP.readFile)
+ * against a plain Files.readAllBytes, and Save File for edited text (streamed from the text area's document)
+ * and for a raw result. Every save atomically replaces the same file, under each durability policy of
+ * AtomicFile.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FileIoBenchmark {
+
+    @Param({"1024", "1048576", "67108864"})
+    public int size;
+
+    // AtomicFile.Durability read by every save; "file" is the default
+    @Param({"none", "file"})
+    public String durability;
+
+    private Path directory;
+    private Path input;
+    private Path saved;
+    private byte[] data;
+    private Document text;
+
+    @Setup
+    public void setUp() throws IOException, BadLocationException {
+        System.setProperty("csc429.durability", durability);
+        directory = BenchmarkData.directory();
+        input = BenchmarkData.file(directory, "input.bin", size, 1);
+        saved = directory.resolve("saved.txt");
+        data = BenchmarkData.random(size, 2);
+        // results shown in the text area are hex or Base64, i.e. plain ASCII
+        byte[] ascii = new byte[size];
+        for (int i = 0; i < size; i++) {
+            ascii[i] = (byte) ('a' + (data[i] & 0x0F));
+        }
+        text = new PlainDocument();
+        text.insertString(0, new String(ascii, StandardCharsets.US_ASCII), null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkData.delete(directory);
+    }
+
+    @Benchmark
+    public byte[] loadReadAllBytes() throws IOException {
+        return Files.readAllBytes(input);
+    }
+
+    @Benchmark
+    public byte[] loadReadFile() throws Throwable {
+        return (byte[]) Engines.READ_FILE.invokeExact(input, Engines.NO_PROGRESS);
+    }
+
+    @Benchmark
+    public Path saveText() throws Throwable {
+        Engines.WRITE_TEXT.invokeExact(saved, text, Engines.NO_PROGRESS);
+        return saved;
+    }
+
+    @Benchmark
+    public Path saveBytes() throws Throwable {
+        Engines.WRITE_BYTES.invokeExact(saved, data, Engines.NO_PROGRESS);
+        return saved;
+    }
+}
@@ -0,0 +1,55 @@
+package csc429.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * KeyDerivationBenchmark measures what KeyManager saves on every operation with a passphrase: stretching
+ * it with PBKDF2-HMAC-SHA256 at the default iteration count, against finding the derived key in the cache.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyDerivationBenchmark {
+
+    // KeyManager.DEFAULT_ITERATIONS
+    private static final int ITERATIONS = 600_000;
+
+    private final char[] passphrase = "correct horse battery staple".toCharArray();
+    private final byte[] salt = BenchmarkData.random(16, 4);
+    private Object uncached;
+    private Object cached;
+
+    @Setup
+    public void setUp() throws Throwable {
+        uncached = (Object) Engines.NEW_KEY_MANAGER.invokeExact(1, 60_000L);
+        cached = (Object) Engines.NEW_KEY_MANAGER.invokeExact(16, 3_600_000L);
+        Object warm = (Object) Engines.DERIVE.invokeExact(cached, passphrase, salt, ITERATIONS);
+    }
+
+    @Benchmark
+    public Object derive() throws Throwable {
+        Engines.CLEAR_KEYS.invokeExact(uncached);
+        return (Object) Engines.DERIVE.invokeExact(uncached, passphrase, salt, ITERATIONS);
+    }
+
+    @Benchmark
+    public Object cached() throws Throwable {
+        return (Object) Engines.DERIVE.invokeExact(cached, passphrase, salt, ITERATIONS);
+    }
+}
@@ -0,0 +1,61 @@
+package csc429.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * XorBenchmark measures the One-Time Pad kernel on in-memory data: the eight-byte lane loop of
+ * XorKernel against its scalar reference loop, and OTPCipher.encrypt, which also allocates the result.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XorBenchmark {
+
+    @Param({"64", "4096", "1048576"})
+    public int size;
+
+    private byte[] data;
+    private byte[] key;
+    private byte[] result;
+
+    @Setup
+    public void setUp() {
+        data = BenchmarkData.random(size, 1);
+        key = BenchmarkData.random(size, 2);
+        result = new byte[size];
+    }
+
+    @Benchmark
+    public byte[] xorLanes() throws Throwable {
+        Engines.XOR.invokeExact(data, 0, key, 0, result, 0, size);
+        return result;
+    }
+
+    @Benchmark
+    public byte[] xorScalar() throws Throwable {
+        Engines.XOR_SCALAR.invokeExact(data, 0, key, 0, result, 0, size);
+        return result;
+    }
+
+    @Benchmark
+    public byte[] otpEncrypt() throws Throwable {
+        return (byte[]) Engines.OTP_ENCRYPT.invokeExact(data, key);
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * AesGcmCipherProvider is the AES-256-GCM record cipher, hardware accelerated on CPUs with AES-NI.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+@CipherInfo(name = "AES-256-GCM", description = "Authenticated encryption of any length. Enter a 256-bit key as 64 hex digits, or a passphrase with 'Passphrase' ticked. ")
+public final class AesGcmCipherProvider extends RecordCipherProvider {
+
+    public AesGcmCipherProvider() {
+        super(RecordCipher.Algorithm.AES_256_GCM);
+    }
+}
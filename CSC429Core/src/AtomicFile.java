@@ -0,0 +1,266 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * AtomicFile replaces a file so that it is never seen half-written.
+ * The new content is written through a FileChannel to a temporary file in the same directory, flushed to
+ * disk according to the durability policy and then renamed over the target in one step, so after a crash
+ * the target holds either its previous content or the new one. Closing without commit discards the
+ * temporary file and leaves the target untouched.
+ * The default policy is read from the system property "csc429.durability" (none, file or full).
+ * A target that is a symbolic link is resolved first, so the link is kept and the file it points to is replaced;
+ * on POSIX file systems the replacement takes over the permissions, owner and group of the file it replaces.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class AtomicFile implements Closeable {
+
+    static final String DURABILITY_PROPERTY = "csc429.durability";
+    // Encoded text is collected in a direct buffer of this size, which the channel writes without another copy
+    private static final int ENCODE_BUFFER_SIZE = 256 * 1024;
+    // Links followed by hand for a target that does not exist yet, as the usual limit of the operating system
+    private static final int MAX_LINKS = 40;
+
+    private final Path target;
+    private final Path temporary;
+    private final FileChannel channel;
+    private final Durability durability;
+    private boolean committed;
+    private CharsetEncoder encoder;
+    private ByteBuffer encoded;
+
+    private AtomicFile(Path target, Path temporary, FileChannel channel, Durability durability) {
+        this.target = target;
+        this.temporary = temporary;
+        this.channel = channel;
+        this.durability = durability;
+    }
+
+    // Start replacing target with the default durability policy
+    public static AtomicFile create(Path target) throws IOException {
+        return create(target, Durability.configured());
+    }
+
+    // Start replacing target; nothing is visible at target until commit
+    public static AtomicFile create(Path target, Durability durability) throws IOException {
+        Path resolved = resolve(target);
+        while (true) {
+            // a hidden sibling, so the rename never crosses file systems
+            Path temporary = resolved.resolveSibling("." + resolved.getFileName() + "."
+                    + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+            FileChannel channel;
+            try {
+                channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            } catch (FileAlreadyExistsException e) {
+                // another writer picked the same name; try the next one
+                continue;
+            }
+            try {
+                // before any content is written, so a private file is never readable through its replacement
+                copyAttributes(resolved, temporary);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+                throw e;
+            }
+            return new AtomicFile(resolved, temporary, channel, durability);
+        }
+    }
+
+    // The file that writing to target really replaces. Symbolic links are followed, so renaming over target keeps
+    // the link and replaces the file it points to, in that file's own directory
+    private static Path resolve(Path target) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        if (Files.exists(absolute)) {
+            return absolute.toRealPath();
+        }
+        // toRealPath needs an existing file, so a link to a file that is yet to be created is followed by hand
+        for (int links = 0; Files.isSymbolicLink(absolute); links++) {
+            if (links == MAX_LINKS) {
+                throw new FileSystemException(target.toString(), null, "Too many levels of symbolic links");
+            }
+            absolute = absolute.resolveSibling(Files.readSymbolicLink(absolute)).normalize();
+        }
+        return absolute;
+    }
+
+    // Give the temporary file the permissions, owner and group of the file it will replace. Only the owner of a
+    // file or an administrator may give it away, so an owner or group that cannot be set is left as created
+    private static void copyAttributes(Path target, Path temporary) throws IOException {
+        PosixFileAttributeView targetView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        PosixFileAttributeView temporaryView = Files.getFileAttributeView(temporary, PosixFileAttributeView.class);
+        if (targetView == null || temporaryView == null || !Files.exists(target)) {
+            return;
+        }
+        PosixFileAttributes attributes = targetView.readAttributes();
+        temporaryView.setPermissions(attributes.permissions());
+        try {
+            temporaryView.setGroup(attributes.group());
+            temporaryView.setOwner(attributes.owner());
+        } catch (FileSystemException e) {
+            // not permitted; the replacement belongs to the user who wrote it
+        }
+    }
+
+    // Replace target with data in one step using the default durability policy
+    public static void write(Path target, byte[] data) throws IOException {
+        write(target, data, Durability.configured());
+    }
+
+    // Replace target with data in one step
+    public static void write(Path target, byte[] data, Durability durability) throws IOException {
+        try (AtomicFile file = create(target, durability)) {
+            file.write(ByteBuffer.wrap(data));
+            file.commit();
+        }
+    }
+
+    // Refuse an output file that is also one of the inputs, such as the input itself or the pad; replacing it
+    // would destroy it before it is read.
+    public static void checkNotInput(Path output, Path... inputs) throws IOException {
+        if (!Files.exists(output)) {
+            return;
+        }
+        for (Path input : inputs) {
+            if (input != null && Files.exists(input) && Files.isSameFile(input, output)) {
+                throw new IllegalArgumentException("The output file " + output.getFileName() + " is also an input;"
+                        + " choose a different output file.");
+            }
+        }
+    }
+
+    // Start replacing the output of an operation, after checkNotInput. The engines write through channel() and
+    // commit once the whole result is written and verified, so a failed or cancelled operation leaves the previous
+    // file, if any, untouched and no partial output behind.
+    public static AtomicFile createOutput(Path output, Path... inputs) throws IOException {
+        checkNotInput(output, inputs);
+        return create(output);
+    }
+
+    // The temporary file, for engines that write at positions of their own from several threads
+    public FileChannel channel() {
+        return channel;
+    }
+
+    // Append the remaining bytes of data
+    public void write(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    // Append text encoded as UTF-8; a surrogate pair must not be split between two calls
+    public void write(CharSequence text) throws IOException {
+        encode(CharBuffer.wrap(text));
+    }
+
+    // Append length characters of chars encoded as UTF-8, reading the array in place
+    public void write(char[] chars, int offset, int length) throws IOException {
+        encode(CharBuffer.wrap(chars, offset, length));
+    }
+
+    private void encode(CharBuffer text) throws IOException {
+        if (encoder == null) {
+            encoder = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            encoded = ByteBuffer.allocateDirect(ENCODE_BUFFER_SIZE);
+        }
+        encoder.reset();
+        while (encoder.encode(text, encoded, true).isOverflow()) {
+            drain();
+        }
+        while (encoder.flush(encoded).isOverflow()) {
+            drain();
+        }
+        drain();
+    }
+
+    private void drain() throws IOException {
+        encoded.flip();
+        write(encoded);
+        encoded.clear();
+    }
+
+    // Flush the new content as the policy demands and move it over the target
+    public void commit() throws IOException {
+        if (durability != Durability.NONE) {
+            channel.force(true);
+        }
+        channel.close();
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+        if (durability == Durability.FULL) {
+            syncDirectory(target.getParent());
+        }
+    }
+
+    // Discard the temporary file unless the content was committed
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            try {
+                channel.close();
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+
+    // Persist the rename itself; some platforms, such as Windows, cannot open a directory and do not need this
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // the file itself is already on disk
+        }
+    }
+
+    /**
+     * How much a commit waits for the disk before the new file replaces the old one.
+     */
+    public enum Durability {
+        // Rename only: safe if the program crashes, but a power loss may leave an empty or old file
+        NONE,
+        // Flush the file to disk before the rename, so the target never holds unwritten data
+        FILE,
+        // Also flush the directory after the rename, so the replacement itself survives a power loss
+        FULL;
+
+        // The policy named by the system property, FILE if it is not set
+        public static Durability configured() {
+            String value = System.getProperty(DURABILITY_PROPERTY);
+            if (value == null || value.isBlank()) {
+                return FILE;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown " + DURABILITY_PROPERTY + " '" + value
+                        + "'; use none, file or full.");
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * ChaCha20CipherProvider is the ChaCha20-Poly1305 record cipher, fast on CPUs without AES instructions.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+@CipherInfo(name = "ChaCha20-Poly1305", description = "Authenticated encryption of any length. Enter a 256-bit key as 64 hex digits, or a passphrase with 'Passphrase' ticked. ")
+public final class ChaCha20CipherProvider extends RecordCipherProvider {
+
+    public ChaCha20CipherProvider() {
+        super(RecordCipher.Algorithm.CHACHA20_POLY1305);
+    }
+}
@@ -0,0 +1,24 @@
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * CipherInfo names a CipherProvider and describes its key requirement for the algorithm box.
+ * It is read from the provider class itself, so ciphers can be listed without being instantiated.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CipherInfo {
+
+    // Name shown in the algorithm box and accepted on the command line, e.g. "OTP"
+    String name();
+
+    // Short description of the cipher and the key it needs, shown next to the algorithm box
+    String description();
+}
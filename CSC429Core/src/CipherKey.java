@@ -0,0 +1,80 @@
+import java.util.Arrays;
+import javax.security.auth.Destroyable;
+
+/**
+ * CipherKey is the key a user hands to a cipher: either raw key bytes (a One-Time Pad key, or a 256-bit
+ * key as 32 bytes or 64 hex digits) or a passphrase, which ciphers that support it stretch into a key
+ * through KeyManager. The key takes ownership of the given array and destroy() zeroes it.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class CipherKey implements Destroyable {
+
+    private final byte[] bytes;
+    private final char[] passphrase;
+    private boolean destroyed;
+
+    private CipherKey(byte[] bytes, char[] passphrase) {
+        this.bytes = bytes;
+        this.passphrase = passphrase;
+    }
+
+    // Raw key bytes, used exactly as given
+    public static CipherKey raw(byte[] bytes) {
+        return new CipherKey(bytes, null);
+    }
+
+    // A passphrase to derive the key from
+    public static CipherKey passphrase(char[] passphrase) {
+        if (passphrase.length == 0) {
+            throw new IllegalArgumentException("The passphrase must not be empty.");
+        }
+        return new CipherKey(null, passphrase);
+    }
+
+    public boolean isPassphrase() {
+        return passphrase != null;
+    }
+
+    // The raw key bytes themselves, not a copy
+    public byte[] bytes() {
+        checkNotDestroyed();
+        if (bytes == null) {
+            throw new IllegalArgumentException("This cipher needs a key, not a passphrase.");
+        }
+        return bytes;
+    }
+
+    // The passphrase itself, not a copy
+    public char[] passphrase() {
+        checkNotDestroyed();
+        if (passphrase == null) {
+            throw new IllegalArgumentException("This data needs a passphrase, not a raw key.");
+        }
+        return passphrase;
+    }
+
+    // Zero the key material; the key cannot be used afterwards
+    @Override
+    public void destroy() {
+        if (bytes != null) {
+            Arrays.fill(bytes, (byte) 0);
+        }
+        if (passphrase != null) {
+            Arrays.fill(passphrase, '\0');
+        }
+        destroyed = true;
+    }
+
+    @Override
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+
+    private void checkNotDestroyed() {
+        if (destroyed) {
+            throw new IllegalStateException("The key has been destroyed.");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+
+/**
+ * CipherProvider is the plug-in point for the ciphers offered by the Encrypt and Decrypt buttons.
+ * Implementations are listed in META-INF/services/CipherProvider and annotated with CipherInfo; CipherRegistry
+ * finds them with ServiceLoader and only instantiates the one the user selects. Every cipher streams from a
+ * channel to a channel, so it can work on inputs of any size; in-memory helpers are built on top of that.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public interface CipherProvider {
+
+    // Throw IllegalArgumentException explaining the key requirement if the key cannot process dataLength bytes
+    void checkKey(CipherKey key, long dataLength);
+
+    // The key for text typed into a key field without 'Passphrase' ticked; by default its UTF-8 bytes as they are
+    default CipherKey keyFromText(String text) {
+        return CipherKey.raw(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Encrypt everything remaining in the input into the output and return the number of input bytes
+    long encrypt(ReadableByteChannel in, WritableByteChannel out, CipherKey key, Progress progress)
+            throws IOException, GeneralSecurityException;
+
+    // Decrypt everything remaining in the input into the output and return the number of input bytes
+    long decrypt(ReadableByteChannel in, WritableByteChannel out, CipherKey key, Progress progress)
+            throws IOException, GeneralSecurityException;
+
+    // Encrypt a whole file; providers whose work can be split override this to use several threads
+    default long encryptFile(Path input, Path output, CipherKey key, int threads, Progress progress)
+            throws IOException, GeneralSecurityException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             AtomicFile out = AtomicFile.createOutput(output, input)) {
+            long length = encrypt(in, out.channel(), key, progress);
+            out.commit();
+            return length;
+        }
+    }
+
+    // Decrypt a whole file; providers whose work can be split override this to use several threads
+    default long decryptFile(Path input, Path output, CipherKey key, int threads, Progress progress)
+            throws IOException, GeneralSecurityException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             AtomicFile out = AtomicFile.createOutput(output, input)) {
+            long length = decrypt(in, out.channel(), key, progress);
+            out.commit();
+            return length;
+        }
+    }
+
+    // Encrypt an in-memory message
+    default byte[] encrypt(byte[] data, CipherKey key) throws GeneralSecurityException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        try {
+            encrypt(Channels.newChannel(new ByteArrayInputStream(data)), Channels.newChannel(out), key, Progress.NONE);
+        } catch (IOException e) {
+            // in-memory channels do not fail
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Decrypt an in-memory message
+    default byte[] decrypt(byte[] data, CipherKey key) throws GeneralSecurityException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+        try {
+            decrypt(Channels.newChannel(new ByteArrayInputStream(data)), Channels.newChannel(out), key, Progress.NONE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,75 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * CipherRegistry lists the ciphers found through ServiceLoader and hands out the selected one.
+ * Names and descriptions come from each provider's CipherInfo annotation, which ServiceLoader.stream()
+ * exposes without creating the provider; a provider is instantiated the first time it is requested and
+ * then reused, so ciphers that are never selected never pay for their setup.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class CipherRegistry {
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    private CipherRegistry(ServiceLoader<CipherProvider> loader) {
+        loader.stream().forEach(provider -> {
+            CipherInfo info = provider.type().getAnnotation(CipherInfo.class);
+            if (info == null) {
+                throw new ServiceConfigurationError(provider.type().getName() + " is not annotated with @CipherInfo");
+            }
+            // the first provider on the class path wins if two use the same name
+            entries.putIfAbsent(info.name(), new Entry(info, provider));
+        });
+    }
+
+    // Find every cipher registered on the class path
+    public static CipherRegistry load() {
+        return new CipherRegistry(ServiceLoader.load(CipherProvider.class));
+    }
+
+    // Names of the registered ciphers in class path order
+    public List<String> names() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    // Description and key requirement of the named cipher
+    public String description(String name) {
+        return entry(name).info.description();
+    }
+
+    // The named cipher, created on first use
+    public synchronized CipherProvider get(String name) {
+        Entry entry = entry(name);
+        if (entry.instance == null) {
+            entry.instance = entry.provider.get();
+        }
+        return entry.instance;
+    }
+
+    private Entry entry(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            throw new IllegalArgumentException("Unknown cipher: " + name + " (available: " + names() + ")");
+        }
+        return entry;
+    }
+
+    // A registered provider, its annotation and, once requested, its instance
+    private static final class Entry {
+        final CipherInfo info;
+        final ServiceLoader.Provider<CipherProvider> provider;
+        CipherProvider instance;
+
+        Entry(CipherInfo info, ServiceLoader.Provider<CipherProvider> provider) {
+            this.info = info;
+            this.provider = provider;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * DigestEngine computes several digests over the same data in a single streaming pass.
+ * Supported are the JDK MessageDigest algorithms (SHA-256, SHA-512, SHA3-256, ...) and the fast
+ * non-cryptographic CRC32C checksum. MessageDigest instances and the read buffer are reused per thread.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class DigestEngine {
+
+    // Algorithms offered by the Hash button, computed together in one pass
+    public static final List<String> DEFAULT_ALGORITHMS = List.of("SHA-256", "SHA-512", "SHA3-256", "CRC32C");
+
+    public static final String CRC32C_NAME = "CRC32C";
+
+    static final int BUFFER_SIZE = 1024 * 1024;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    // Per-thread pool of digest instances, keyed by algorithm name
+    private static final ThreadLocal<Map<String, MessageDigest>> DIGESTS = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private DigestEngine() {
+    }
+
+    // Digest a file without loading it into memory, reading it from disk only once
+    public static Map<String, byte[]> digest(Path file, List<String> algorithms) throws IOException, NoSuchAlgorithmException {
+        return digest(file, algorithms, Progress.NONE);
+    }
+
+    // Digest a file, reporting each buffer read to progress
+    public static Map<String, byte[]> digest(Path file, List<String> algorithms, Progress progress)
+            throws IOException, NoSuchAlgorithmException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            return digest(in, algorithms, progress);
+        }
+    }
+
+    // Digest everything remaining in the channel, reading it only once
+    public static Map<String, byte[]> digest(ReadableByteChannel in, List<String> algorithms)
+            throws IOException, NoSuchAlgorithmException {
+        return digest(in, algorithms, Progress.NONE);
+    }
+
+    // Digest everything remaining in the channel, reporting each buffer read to progress
+    public static Map<String, byte[]> digest(ReadableByteChannel in, List<String> algorithms, Progress progress)
+            throws IOException, NoSuchAlgorithmException {
+        try (Metrics.Span span = Metrics.start(operation(algorithms))) {
+            List<Accumulator> accumulators = accumulators(algorithms);
+            ByteBuffer buffer = BUFFER.get();
+            long total = 0;
+            while (in.read(buffer.clear()) >= 0) {
+                buffer.flip();
+                for (Accumulator accumulator : accumulators) {
+                    accumulator.update(buffer);
+                    buffer.rewind();
+                }
+                total += buffer.limit();
+                progress.advance(buffer.limit());
+            }
+            Map<String, byte[]> digests = finish(algorithms, accumulators);
+            span.completed(total);
+            return digests;
+        }
+    }
+
+    // Digest an in-memory array with every requested algorithm
+    public static Map<String, byte[]> digest(byte[] data, List<String> algorithms) throws NoSuchAlgorithmException {
+        try (Metrics.Span span = Metrics.start(operation(algorithms))) {
+            List<Accumulator> accumulators = accumulators(algorithms);
+            for (Accumulator accumulator : accumulators) {
+                accumulator.update(ByteBuffer.wrap(data));
+            }
+            Map<String, byte[]> digests = finish(algorithms, accumulators);
+            span.completed(data.length);
+            return digests;
+        }
+    }
+
+    // Metrics name of a digest run, e.g. "hash.SHA-256+CRC32C"
+    private static String operation(List<String> algorithms) {
+        return "hash." + String.join("+", algorithms);
+    }
+
+    // One "ALGORITHM: hex" line per digest, in the order they were requested
+    public static String describe(Map<String, byte[]> digests) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, byte[]> entry : digests.entrySet()) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(entry.getKey()).append(": ").append(toHex(entry.getValue()));
+        }
+        return text.toString();
+    }
+
+    // Lowercase hex form of a digest
+    public static String toHex(byte[] digest) {
+        char[] out = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            out[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0x0F];
+            out[2 * i + 1] = HEX_DIGITS[digest[i] & 0x0F];
+        }
+        return new String(out);
+    }
+
+    // Borrow this thread's pooled digest for the algorithm, reset and ready for use
+    static MessageDigest pooled(String algorithm) throws NoSuchAlgorithmException {
+        Map<String, MessageDigest> pool = DIGESTS.get();
+        MessageDigest digest = pool.get(algorithm);
+        if (digest == null) {
+            digest = MessageDigest.getInstance(algorithm);
+            pool.put(algorithm, digest);
+        } else {
+            digest.reset();
+        }
+        return digest;
+    }
+
+    private static List<Accumulator> accumulators(List<String> algorithms) throws NoSuchAlgorithmException {
+        if (algorithms.isEmpty()) {
+            throw new IllegalArgumentException("At least one digest algorithm is required.");
+        }
+        if (algorithms.stream().map(String::toUpperCase).distinct().count() != algorithms.size()) {
+            throw new IllegalArgumentException("Each digest algorithm may only be requested once: " + algorithms);
+        }
+        List<Accumulator> accumulators = new ArrayList<>(algorithms.size());
+        for (String algorithm : algorithms) {
+            if (algorithm.equalsIgnoreCase(CRC32C_NAME)) {
+                accumulators.add(new ChecksumAccumulator());
+            } else {
+                accumulators.add(new DigestAccumulator(pooled(algorithm)));
+            }
+        }
+        return accumulators;
+    }
+
+    private static Map<String, byte[]> finish(List<String> algorithms, List<Accumulator> accumulators) {
+        Map<String, byte[]> digests = new LinkedHashMap<>();
+        for (int i = 0; i < algorithms.size(); i++) {
+            digests.put(algorithms.get(i), accumulators.get(i).finish());
+        }
+        return digests;
+    }
+
+    // Common view of a MessageDigest and a Checksum
+    private interface Accumulator {
+        void update(ByteBuffer data);
+
+        byte[] finish();
+    }
+
+    private static final class DigestAccumulator implements Accumulator {
+        private final MessageDigest digest;
+
+        DigestAccumulator(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public void update(ByteBuffer data) {
+            digest.update(data);
+        }
+
+        @Override
+        public byte[] finish() {
+            return digest.digest();
+        }
+    }
+
+    private static final class ChecksumAccumulator implements Accumulator {
+        private final CRC32C checksum = new CRC32C();
+
+        @Override
+        public void update(ByteBuffer data) {
+            checksum.update(data);
+        }
+
+        @Override
+        public byte[] finish() {
+            long value = checksum.getValue();
+            return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * DisplayCodec turns raw result bytes into text for the GUI text areas and back again.
+ * It is only used for display, so the ciphertext itself is never passed through a charset.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public enum DisplayCodec {
+
+    HEX("Hex") {
+        @Override
+        public String encode(byte[] data) {
+            char[] out = new char[data.length * 2];
+            for (int i = 0; i < data.length; i++) {
+                out[2 * i] = HEX_DIGITS[(data[i] >> 4) & 0x0F];
+                out[2 * i + 1] = HEX_DIGITS[data[i] & 0x0F];
+            }
+            return new String(out);
+        }
+
+        @Override
+        public byte[] decode(String text) {
+            byte[] out = new byte[text.length() / 2];
+            int count = 0;
+            int high = -1;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    continue;
+                }
+                int digit = Character.digit(c, 16);
+                if (digit < 0) {
+                    throw new IllegalArgumentException("Invalid hex character '" + c + "' at position " + i);
+                }
+                if (high < 0) {
+                    high = digit;
+                } else {
+                    out[count++] = (byte) ((high << 4) | digit);
+                    high = -1;
+                }
+            }
+            if (high >= 0) {
+                throw new IllegalArgumentException("Hex text must have an even number of digits.");
+            }
+            return count == out.length ? out : Arrays.copyOf(out, count);
+        }
+    },
+
+    BASE64("Base64") {
+        @Override
+        public String encode(byte[] data) {
+            return Base64.getEncoder().encodeToString(data);
+        }
+
+        @Override
+        public byte[] decode(String text) {
+            return Base64.getMimeDecoder().decode(text);
+        }
+    };
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final String label;
+
+    DisplayCodec(String label) {
+        this.label = label;
+    }
+
+    // Convert bytes into display text
+    public abstract String encode(byte[] data);
+
+    // Convert display text back into the exact original bytes
+    public abstract byte[] decode(String text);
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
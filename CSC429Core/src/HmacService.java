@@ -0,0 +1,197 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * HmacService computes and verifies HMAC-SHA256/HMAC-SHA512 tags over files and byte arrays.
+ * A Key holds the Mac initialized once with an HMAC key, so the key schedule (the inner and outer padded
+ * key blocks) is computed once and every message tagged through that Key starts from a clone of that state;
+ * callers that tag many messages with one key create the Key once and pass it along. The overloads taking
+ * the key bytes set up a new Key for each call.
+ * Verification always uses a constant-time comparison, and many (file, tag) pairs can be checked in parallel.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class HmacService {
+
+    public static final String HMAC_SHA256 = "HmacSHA256";
+    public static final String HMAC_SHA512 = "HmacSHA512";
+
+    static final int BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private HmacService() {
+    }
+
+    // Set up the key once for tagging and verifying any number of messages
+    public static Key key(String algorithm, byte[] key) throws GeneralSecurityException {
+        return new Key(algorithm, key);
+    }
+
+    // Tag an in-memory message
+    public static byte[] tag(String algorithm, byte[] key, byte[] message) throws GeneralSecurityException {
+        return tag(key(algorithm, key), message);
+    }
+
+    // Tag an in-memory message with a key that was set up once
+    public static byte[] tag(Key key, byte[] message) throws GeneralSecurityException {
+        try (Metrics.Span span = Metrics.start("hmac." + key.algorithm)) {
+            byte[] tag = key.newMac().doFinal(message);
+            span.completed(message.length);
+            return tag;
+        }
+    }
+
+    // Tag a file by streaming it from disk
+    public static byte[] tag(String algorithm, byte[] key, Path file) throws IOException, GeneralSecurityException {
+        return tag(key(algorithm, key), file, Progress.NONE);
+    }
+
+    // Tag a file by streaming it from disk, reporting each buffer read to progress
+    public static byte[] tag(String algorithm, byte[] key, Path file, Progress progress)
+            throws IOException, GeneralSecurityException {
+        return tag(key(algorithm, key), file, progress);
+    }
+
+    // Tag a file with a key that was set up once, reporting each buffer read to progress
+    public static byte[] tag(Key key, Path file, Progress progress) throws IOException, GeneralSecurityException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            return tag(key, in, progress);
+        }
+    }
+
+    // Tag everything remaining in the channel
+    public static byte[] tag(String algorithm, byte[] key, ReadableByteChannel in) throws IOException, GeneralSecurityException {
+        return tag(key(algorithm, key), in, Progress.NONE);
+    }
+
+    // Tag everything remaining in the channel with a key that was set up once, reporting each buffer read to progress
+    public static byte[] tag(Key key, ReadableByteChannel in, Progress progress)
+            throws IOException, GeneralSecurityException {
+        try (Metrics.Span span = Metrics.start("hmac." + key.algorithm)) {
+            Mac mac = key.newMac();
+            ByteBuffer buffer = BUFFER.get();
+            long total = 0;
+            while (in.read(buffer.clear()) >= 0) {
+                total += buffer.position();
+                progress.advance(buffer.position());
+                mac.update(buffer.flip());
+            }
+            byte[] tag = mac.doFinal();
+            span.completed(total);
+            return tag;
+        }
+    }
+
+    // Check a file against its expected tag in constant time
+    public static boolean verify(Key key, Path file, byte[] expectedTag) throws IOException, GeneralSecurityException {
+        return MessageDigest.isEqual(tag(key, file, Progress.NONE), expectedTag);
+    }
+
+    // Check an in-memory message against its expected tag in constant time
+    public static boolean verify(String algorithm, byte[] key, byte[] message, byte[] expectedTag)
+            throws GeneralSecurityException {
+        return MessageDigest.isEqual(tag(algorithm, key, message), expectedTag);
+    }
+
+    // Verify many (file, tag) pairs concurrently; every file maps to VALID, INVALID or ERROR.
+    // The key is set up once and shared by every check
+    public static Map<Path, Result> verifyAll(Key key, Map<Path, byte[]> expectedTags, int threads)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "hmac-verify");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Metrics.Queue waiting = Metrics.queue("hmac-verify.files");
+        try {
+            List<Path> files = new ArrayList<>(expectedTags.keySet());
+            List<Future<Boolean>> checks = new ArrayList<>(files.size());
+            for (Path file : files) {
+                byte[] expected = expectedTags.get(file);
+                waiting.enter();
+                checks.add(pool.submit(() -> {
+                    waiting.leave();
+                    return verify(key, file, expected);
+                }));
+            }
+            Map<Path, Result> results = new LinkedHashMap<>();
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    results.put(files.get(i), checks.get(i).get() ? Result.VALID : Result.INVALID);
+                } catch (ExecutionException e) {
+                    results.put(files.get(i), Result.ERROR);
+                }
+            }
+            return results;
+        } finally {
+            // checks that never started, because the caller was interrupted, have left the queue as well
+            for (int i = pool.shutdownNow().size(); i > 0; i--) {
+                waiting.leave();
+            }
+        }
+    }
+
+    /**
+     * Key is an HMAC key that has been set up for one algorithm: it keeps the Mac initialized with the key,
+     * whose state is cloned for each message, so the key schedule is not recomputed per message.
+     * A Key may be shared between threads.
+     */
+    public static final class Key {
+
+        private final String algorithm;
+        private final SecretKeySpec secret;
+        private final Mac initialized;
+
+        private Key(String algorithm, byte[] key) throws GeneralSecurityException {
+            if (key.length == 0) {
+                throw new InvalidKeyException("HMAC key must not be empty.");
+            }
+            this.algorithm = algorithm;
+            this.secret = new SecretKeySpec(key, algorithm);
+            this.initialized = Mac.getInstance(algorithm);
+            initialized.init(secret);
+        }
+
+        public String algorithm() {
+            return algorithm;
+        }
+
+        // A Mac at the start of a message: a clone of the initialized state, or a fresh one if cloning is unsupported
+        Mac newMac() throws GeneralSecurityException {
+            try {
+                synchronized (initialized) {
+                    return (Mac) initialized.clone();
+                }
+            } catch (CloneNotSupportedException e) {
+                Mac mac = Mac.getInstance(algorithm);
+                mac.init(secret);
+                return mac;
+            }
+        }
+    }
+
+    // Outcome of verifying one file
+    public enum Result {
+        VALID, INVALID, ERROR
+    }
+}
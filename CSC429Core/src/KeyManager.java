@@ -0,0 +1,304 @@
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.security.auth.DestroyFailedException;
+import javax.security.auth.Destroyable;
+
+/**
+ * KeyManager stretches passphrases into 256-bit keys with PBKDF2-HMAC-SHA256 and remembers the result, so
+ * repeated operations with the same passphrase pay for the deliberately slow derivation only once.
+ * Derived keys are kept in a bounded LRU cache and expire after a fixed time; a key that is evicted, expires
+ * or is cleared has its bytes zeroed. The cache is indexed by an HMAC of passphrase, salt and iteration count
+ * under a random per-process secret, so neither the passphrase nor a fast hash of it is held in memory.
+ *
+ * Each passphrase gets one random salt per session for encryption, so encrypting many files with the same
+ * passphrase derives its key once; every file still has its own random nonces.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class KeyManager {
+
+    static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    // OWASP's recommendation for PBKDF2-HMAC-SHA256; a few hundred milliseconds per derivation
+    static final int DEFAULT_ITERATIONS = 600_000;
+    // Parameters read from a file are refused above this, so a crafted header cannot stall the program
+    static final int MAX_ITERATIONS = 10_000_000;
+    static final int SALT_LENGTH = 16;
+    static final int KEY_LENGTH = 32;
+    static final int DEFAULT_CAPACITY = 16;
+    static final long DEFAULT_TTL_MILLIS = 15 * 60 * 1000;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final KeyManager SHARED = new KeyManager(DEFAULT_CAPACITY, DEFAULT_TTL_MILLIS);
+    // Domain separation of the two kinds of cache lookup
+    private static final byte SESSION_SALT = 0;
+    private static final byte DERIVED_KEY = 1;
+
+    private final int capacity;
+    private final long ttlMillis;
+    private final SecretKey lookupSecret;
+    // Both maps are in access order, so the first entry is the least recently used
+    private final LinkedHashMap<ByteBuffer, DerivedKey> keys = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<ByteBuffer, byte[]> sessionSalts = new LinkedHashMap<>(16, 0.75f, true);
+
+    // A cache of at most capacity keys, each forgotten ttlMillis after it was derived
+    public KeyManager(int capacity, long ttlMillis) {
+        if (capacity < 1 || ttlMillis < 1) {
+            throw new IllegalArgumentException("Key cache capacity and lifetime must be positive.");
+        }
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        byte[] secret = new byte[32];
+        RANDOM.nextBytes(secret);
+        this.lookupSecret = new SecretKeySpec(secret, "HmacSHA256");
+    }
+
+    // The cache shared by the GUI, the command line and the ciphers
+    public static KeyManager shared() {
+        return SHARED;
+    }
+
+    // Key for encrypting with a passphrase, under this session's salt for it; only the first call derives
+    public DerivedKey sessionKey(char[] passphrase) throws GeneralSecurityException {
+        ByteBuffer lookup = lookup(SESSION_SALT, passphrase, new byte[0], DEFAULT_ITERATIONS);
+        byte[] salt;
+        synchronized (this) {
+            salt = sessionSalts.get(lookup);
+            if (salt == null) {
+                salt = new byte[SALT_LENGTH];
+                RANDOM.nextBytes(salt);
+                sessionSalts.put(lookup, salt);
+                trim(sessionSalts);
+            }
+        }
+        return derive(passphrase, salt, DEFAULT_ITERATIONS);
+    }
+
+    // Key for a passphrase with the given salt and iteration count, derived only if it is not cached
+    public DerivedKey derive(char[] passphrase, byte[] salt, int iterations) throws GeneralSecurityException {
+        if (iterations < 1 || iterations > MAX_ITERATIONS) {
+            throw new GeneralSecurityException("Invalid key derivation iteration count " + iterations);
+        }
+        ByteBuffer lookup = lookup(DERIVED_KEY, passphrase, salt, iterations);
+        synchronized (this) {
+            purgeExpired();
+            DerivedKey cached = keys.get(lookup);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // derived outside the lock, so a slow derivation does not hold up lookups of other keys
+        DerivedKey derived = new DerivedKey(pbkdf2(passphrase, salt, iterations), salt.clone(), iterations,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+        synchronized (this) {
+            DerivedKey raced = keys.get(lookup);
+            if (raced != null) {
+                derived.destroy();
+                return raced;
+            }
+            keys.put(lookup, derived);
+            while (keys.size() > capacity) {
+                Iterator<DerivedKey> eldest = keys.values().iterator();
+                eldest.next().destroy();
+                eldest.remove();
+            }
+        }
+        Expiry.SCHEDULER.schedule(this::purgeExpired, ttlMillis, TimeUnit.MILLISECONDS);
+        return derived;
+    }
+
+    // Zero and forget every cached key and session salt
+    public synchronized void clear() {
+        for (DerivedKey key : keys.values()) {
+            key.destroy();
+        }
+        keys.clear();
+        sessionSalts.clear();
+    }
+
+    // Number of keys currently cached
+    public synchronized int size() {
+        purgeExpired();
+        return keys.size();
+    }
+
+    private synchronized void purgeExpired() {
+        long now = System.nanoTime();
+        Iterator<DerivedKey> iterator = keys.values().iterator();
+        while (iterator.hasNext()) {
+            DerivedKey key = iterator.next();
+            if (now - key.expiresAt >= 0) {
+                key.destroy();
+                iterator.remove();
+            }
+        }
+    }
+
+    private void trim(Map<ByteBuffer, ?> map) {
+        Iterator<?> eldest = map.values().iterator();
+        while (map.size() > capacity) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private ByteBuffer lookup(byte kind, char[] passphrase, byte[] salt, int iterations) throws GeneralSecurityException {
+        ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(passphrase));
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(lookupSecret);
+            mac.update(kind);
+            mac.update(ByteBuffer.allocate(8).putInt(salt.length).putInt(iterations).array());
+            mac.update(salt);
+            mac.update(encoded);
+            return ByteBuffer.wrap(mac.doFinal());
+        } finally {
+            Arrays.fill(encoded.array(), (byte) 0);
+        }
+    }
+
+    private static byte[] pbkdf2(char[] passphrase, byte[] salt, int iterations) throws GeneralSecurityException {
+        try (Metrics.Span span = Metrics.start("kdf.PBKDF2")) {
+            PBEKeySpec spec = new PBEKeySpec(passphrase, salt, iterations, KEY_LENGTH * 8);
+            SecretKey generated = null;
+            try {
+                generated = SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec);
+                byte[] key = generated.getEncoded();
+                span.completed(0);
+                return key;
+            } finally {
+                spec.clearPassword();
+                destroyQuietly(generated);
+            }
+        }
+    }
+
+    // The factory's key holds another copy of the derived bytes. Providers that cannot destroy it on demand
+    // (SunJCE before Java 19) zero it when it is garbage collected instead
+    private static void destroyQuietly(SecretKey key) {
+        if (key == null || key.isDestroyed()) {
+            return;
+        }
+        try {
+            key.destroy();
+        } catch (DestroyFailedException e) {
+            // left to the provider's own cleanup
+        }
+    }
+
+    // Zeroes expired keys even while nobody asks for a key; started on the first derivation
+    private static final class Expiry {
+        static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "key-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * A 256-bit key derived from a passphrase, with the salt and iteration count needed to derive it again.
+     * Its bytes are zeroed when the cache lets go of it; take the SecretKey before starting an operation.
+     * The SecretKeys it hands out share its one copy of the key bytes instead of copying them, so destroying
+     * the DerivedKey clears them as well.
+     */
+    public static final class DerivedKey implements Destroyable {
+        private final byte[] key;
+        private final byte[] salt;
+        private final int iterations;
+        private final long expiresAt;
+        // One SecretKey per cipher algorithm that asked for this key; there are only a couple of algorithms
+        private final Map<String, SecretKey> secretKeys = new HashMap<>(4);
+        private boolean destroyed;
+
+        private DerivedKey(byte[] key, byte[] salt, int iterations, long expiresAt) {
+            this.key = key;
+            this.salt = salt;
+            this.iterations = iterations;
+            this.expiresAt = expiresAt;
+        }
+
+        // The key for a cipher algorithm such as "AES" or "ChaCha20"
+        public synchronized SecretKey secretKey(String algorithm) {
+            if (destroyed) {
+                throw new IllegalStateException("The derived key has expired; derive it again.");
+            }
+            return secretKeys.computeIfAbsent(algorithm, Secret::new);
+        }
+
+        public byte[] salt() {
+            return salt.clone();
+        }
+
+        public int iterations() {
+            return iterations;
+        }
+
+        @Override
+        public synchronized void destroy() {
+            Arrays.fill(key, (byte) 0);
+            secretKeys.clear();
+            destroyed = true;
+        }
+
+        @Override
+        public synchronized boolean isDestroyed() {
+            return destroyed;
+        }
+
+        // The derived key under a cipher algorithm's name; every provider gets its own copy from getEncoded
+        private final class Secret implements SecretKey {
+            private static final long serialVersionUID = 1L;
+            private final String algorithm;
+
+            Secret(String algorithm) {
+                this.algorithm = algorithm;
+            }
+
+            @Override
+            public String getAlgorithm() {
+                return algorithm;
+            }
+
+            @Override
+            public String getFormat() {
+                return "RAW";
+            }
+
+            @Override
+            public byte[] getEncoded() {
+                synchronized (DerivedKey.this) {
+                    if (destroyed) {
+                        throw new IllegalStateException("The derived key has expired; derive it again.");
+                    }
+                    return key.clone();
+                }
+            }
+
+            @Override
+            public void destroy() {
+                DerivedKey.this.destroy();
+            }
+
+            @Override
+            public boolean isDestroyed() {
+                return DerivedKey.this.isDestroyed();
+            }
+        }
+    }
+}
@@ -0,0 +1,505 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Metrics records what the operations of the tool cost: how often each one ran and failed, the bytes it
+ * processed, a latency histogram, how many ran at once, and the bytes allocated while it ran. Queues such
+ * as the chunk pool of the batch pipeline report their depth here as well.
+ *
+ * Engines time each operation with a span:
+ *   try (Metrics.Span span = Metrics.start("hash.SHA-256")) { ...; span.completed(bytes); }
+ * and a span closed without completed() counts as a failure. The figures are published three ways:
+ * as MXBeans under csc429:type=Operation and csc429:type=Queue for JConsole or any other JMX client, as
+ * csc429.Operation events while a flight recording is running, and as a JSON snapshot that a headless
+ * run can have rewritten periodically with dumpPeriodically.
+ *
+ * Allocation is counted on the thread that runs the operation; work it hands to a pool is not included.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class Metrics {
+
+    static final String OPERATION_NAME = "csc429:type=Operation,name=";
+    static final String QUEUE_NAME = "csc429:type=Queue,name=";
+
+    private static final ConcurrentMap<String, Operation> OPERATIONS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Queue> QUEUES = new ConcurrentHashMap<>();
+    private static final long STARTED_MILLIS = System.currentTimeMillis();
+
+    // Starting JMX takes a few hundred milliseconds, so MBeans are registered on a thread of their own
+    private static final ExecutorService REGISTRAR = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "metrics-jmx");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private Metrics() {
+    }
+
+    // Start timing one run of the named operation on the current thread
+    public static Span start(String operation) {
+        return new Span(operation(operation));
+    }
+
+    // The statistics of an operation, created and published on first use
+    public static Operation operation(String name) {
+        Operation operation = OPERATIONS.get(name);
+        if (operation == null) {
+            operation = OPERATIONS.computeIfAbsent(name, Operation::new);
+            register(OPERATION_NAME + name, operation);
+        }
+        return operation;
+    }
+
+    // The depth gauge of a queue, created and published on first use
+    public static Queue queue(String name) {
+        Queue queue = QUEUES.get(name);
+        if (queue == null) {
+            queue = QUEUES.computeIfAbsent(name, Queue::new);
+            register(QUEUE_NAME + name, queue);
+        }
+        return queue;
+    }
+
+    // Every operation and queue as one JSON object
+    public static String snapshot() {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\n  \"timestamp\": \"").append(Instant.now()).append("\",\n");
+        json.append("  \"uptimeMillis\": ").append(System.currentTimeMillis() - STARTED_MILLIS).append(",\n");
+        json.append("  \"operations\": {");
+        String separator = "\n";
+        for (Operation operation : new TreeMap<>(OPERATIONS).values()) {
+            json.append(separator).append("    ").append(quote(operation.name)).append(": ");
+            operation.appendJson(json);
+            separator = ",\n";
+        }
+        json.append("\n  },\n  \"queues\": {");
+        separator = "\n";
+        for (Queue queue : new TreeMap<>(QUEUES).values()) {
+            json.append(separator).append("    ").append(quote(queue.name)).append(": {\"depth\": ")
+                    .append(queue.getDepth()).append(", \"maxDepth\": ").append(queue.getMaxDepth()).append('}');
+            separator = ",\n";
+        }
+        return json.append("\n  }\n}\n").toString();
+    }
+
+    // Replace file with a snapshot; readers see either the previous snapshot or the new one, never a partial file
+    public static void writeSnapshot(Path file) throws IOException {
+        // the next snapshot follows within seconds, so it is not worth an fsync
+        AtomicFile.write(file, snapshot().getBytes(StandardCharsets.UTF_8), AtomicFile.Durability.NONE);
+    }
+
+    // Rewrite file with a snapshot every interval until the returned dump is closed, which writes a last one
+    public static Dump dumpPeriodically(Path file, long intervalMillis) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("The metrics interval must be positive.");
+        }
+        return new Dump(file, intervalMillis);
+    }
+
+    private static void register(String objectName, Object mxBean) {
+        REGISTRAR.execute(() -> {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(mxBean, new ObjectName(objectName));
+            } catch (JMException | RuntimeException e) {
+                // the figures stay available through snapshots even if JMX refuses the name
+            }
+        });
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static String quote(String text) {
+        return '"' + text.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    // One timed run of an operation; close it exactly once, after completed() if the run succeeded
+    public static final class Span implements AutoCloseable {
+        private final Operation operation;
+        private final long startNanos;
+        private final long startAllocated;
+        private final OperationEvent event;
+        private long bytes;
+        private boolean completed;
+
+        private Span(Operation operation) {
+            this.operation = operation;
+            operation.inFlight.enter();
+            // creating the first event costs a JFR initialization, so events are only made while JFR is running
+            event = FlightRecorder.isInitialized() ? new OperationEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            startAllocated = allocatedBytes();
+            startNanos = System.nanoTime();
+        }
+
+        // Mark the run as successful after processing the given number of bytes
+        public void completed(long bytes) {
+            this.bytes = bytes;
+            this.completed = true;
+        }
+
+        @Override
+        public void close() {
+            long nanos = System.nanoTime() - startNanos;
+            long allocated = Math.max(0, allocatedBytes() - startAllocated);
+            operation.inFlight.leave();
+            operation.record(nanos, bytes, allocated, completed);
+            if (event != null) {
+                event.operation = operation.name;
+                event.bytes = bytes;
+                event.allocated = allocated;
+                event.failed = !completed;
+                event.commit();
+            }
+        }
+    }
+
+    // Counters and latency histogram of one operation, published as an MXBean
+    public static final class Operation implements OperationMXBean {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final Histogram latency = new Histogram();
+        private final Queue inFlight;
+
+        private Operation(String name) {
+            this.name = name;
+            this.inFlight = new Queue(name);
+        }
+
+        private void record(long nanos, long processed, long allocatedBytes, boolean succeeded) {
+            count.increment();
+            if (!succeeded) {
+                failures.increment();
+            }
+            bytes.add(processed);
+            allocated.add(allocatedBytes);
+            busyNanos.add(nanos);
+            latency.record(nanos);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        @Override
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        @Override
+        public double getMegabytesPerSecond() {
+            long nanos = busyNanos.sum();
+            return nanos == 0 ? 0 : bytes.sum() * 1e3 / nanos;
+        }
+
+        @Override
+        public long getAllocatedBytes() {
+            return allocated.sum();
+        }
+
+        @Override
+        public long getInFlight() {
+            return inFlight.getDepth();
+        }
+
+        @Override
+        public long getMaxInFlight() {
+            return inFlight.getMaxDepth();
+        }
+
+        @Override
+        public double getMeanLatencyMillis() {
+            return latency.mean() / 1e6;
+        }
+
+        @Override
+        public double getP50LatencyMillis() {
+            return latency.percentile(50) / 1e6;
+        }
+
+        @Override
+        public double getP90LatencyMillis() {
+            return latency.percentile(90) / 1e6;
+        }
+
+        @Override
+        public double getP99LatencyMillis() {
+            return latency.percentile(99) / 1e6;
+        }
+
+        @Override
+        public double getP999LatencyMillis() {
+            return latency.percentile(99.9) / 1e6;
+        }
+
+        @Override
+        public double getMaxLatencyMillis() {
+            return latency.max() / 1e6;
+        }
+
+        private void appendJson(StringBuilder json) {
+            json.append("{\"count\": ").append(getCount())
+                    .append(", \"failures\": ").append(getFailures())
+                    .append(", \"bytes\": ").append(getBytes())
+                    .append(", \"allocatedBytes\": ").append(getAllocatedBytes())
+                    .append(", \"inFlight\": ").append(getInFlight())
+                    .append(", \"maxInFlight\": ").append(getMaxInFlight())
+                    .append(", \"latencyNanos\": {\"mean\": ").append(Math.round(latency.mean()))
+                    .append(", \"p50\": ").append(latency.percentile(50))
+                    .append(", \"p90\": ").append(latency.percentile(90))
+                    .append(", \"p99\": ").append(latency.percentile(99))
+                    .append(", \"p999\": ").append(latency.percentile(99.9))
+                    .append(", \"max\": ").append(latency.max()).append("}}");
+        }
+    }
+
+    // Current and highest number of items in a queue, or of runs of an operation in flight
+    public static final class Queue implements QueueMXBean {
+        private final String name;
+        private final AtomicLong depth = new AtomicLong();
+        private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+
+        private Queue(String name) {
+            this.name = name;
+        }
+
+        public void enter() {
+            maxDepth.accumulate(depth.incrementAndGet());
+        }
+
+        public void leave() {
+            depth.decrementAndGet();
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getDepth() {
+            return depth.get();
+        }
+
+        @Override
+        public long getMaxDepth() {
+            return maxDepth.get();
+        }
+    }
+
+    // A snapshot file rewritten on a daemon thread until close
+    public static final class Dump implements AutoCloseable {
+        private final Path file;
+        private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private Dump(Path file, long intervalMillis) {
+            this.file = file;
+            timer.scheduleAtFixedRate(this::write, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void write() {
+            try {
+                writeSnapshot(file);
+            } catch (IOException e) {
+                System.err.println("Cannot write metrics to " + file + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            timer.shutdownNow();
+            try {
+                timer.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            write();
+        }
+    }
+
+    // Log-linear latency histogram in the style of HdrHistogram: each power of two of nanoseconds is split
+    // into SUB_BUCKETS equal buckets, so any recorded value is reported within 1/SUB_BUCKETS (about 3%)
+    static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS * (64 - SUB_BUCKET_BITS));
+        private final LongAdder total = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long value) {
+            long clamped = Math.max(0, value);
+            counts.incrementAndGet(index(clamped));
+            total.increment();
+            sum.add(clamped);
+            max.accumulate(clamped);
+        }
+
+        double mean() {
+            long count = total.sum();
+            return count == 0 ? 0 : (double) sum.sum() / count;
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        // Smallest recorded value that percent of all values are at or below, rounded up to its bucket's upper end
+        long percentile(double percent) {
+            long count = total.sum();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+            long seen = 0;
+            for (int index = 0; index < counts.length(); index++) {
+                seen += counts.get(index);
+                if (seen >= rank) {
+                    return Math.min(highestValue(index), max());
+                }
+            }
+            return max();
+        }
+
+        // Values below SUB_BUCKETS have a bucket each; above, the top SUB_BUCKET_BITS bits below the highest one select the bucket
+        static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            return SUB_BUCKETS * (shift + 1) + (int) (value >>> shift) - SUB_BUCKETS;
+        }
+
+        static long highestValue(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int shift = index / SUB_BUCKETS - 1;
+            long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+            return lowest + (1L << shift) - 1;
+        }
+    }
+
+    // The management interface of each operation, named csc429:type=Operation,name=<operation>
+    public interface OperationMXBean {
+        String getName();
+
+        long getCount();
+
+        long getFailures();
+
+        long getBytes();
+
+        double getMegabytesPerSecond();
+
+        long getAllocatedBytes();
+
+        long getInFlight();
+
+        long getMaxInFlight();
+
+        double getMeanLatencyMillis();
+
+        double getP50LatencyMillis();
+
+        double getP90LatencyMillis();
+
+        double getP99LatencyMillis();
+
+        double getP999LatencyMillis();
+
+        double getMaxLatencyMillis();
+    }
+
+    // The management interface of each queue, named csc429:type=Queue,name=<queue>
+    public interface QueueMXBean {
+        String getName();
+
+        long getDepth();
+
+        long getMaxDepth();
+    }
+
+    // Flight recorder event for every finished span
+    @Name("csc429.Operation")
+    @Label("CSC429 Operation")
+    @Category("CSC429")
+    @Description("One encryption, hash, signature or file operation of the CSC429 tool")
+    @StackTrace(false)
+    static final class OperationEvent extends jdk.jfr.Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+
+        @Label("Failed")
+        boolean failed;
+    }
+}
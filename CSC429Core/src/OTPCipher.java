@@ -0,0 +1,44 @@
+import java.nio.ByteBuffer;
+
+/**
+ * OTPCipher is the headless, binary-safe One-Time Pad API.
+ * It works on raw bytes only; any conversion to text is left to DisplayCodec in the GUI.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class OTPCipher {
+
+    private OTPCipher() {
+    }
+
+    // Encrypt the plaintext with the first plaintext.length bytes of the key
+    public static byte[] encrypt(byte[] plaintext, byte[] key) {
+        checkKeyLength(key.length, plaintext.length);
+        byte[] ciphertext = new byte[plaintext.length];
+        XorKernel.xor(plaintext, 0, key, 0, ciphertext, 0, plaintext.length);
+        return ciphertext;
+    }
+
+    // OTP decryption is the same XOR with the same key
+    public static byte[] decrypt(byte[] ciphertext, byte[] key) {
+        return encrypt(ciphertext, key);
+    }
+
+    // Encrypt the remaining bytes of input into output, advancing all three buffers
+    public static void encrypt(ByteBuffer input, ByteBuffer key, ByteBuffer output) {
+        checkKeyLength(key.remaining(), input.remaining());
+        XorKernel.xor(input, key, output);
+    }
+
+    // Decrypt the remaining bytes of input into output, advancing all three buffers
+    public static void decrypt(ByteBuffer input, ByteBuffer key, ByteBuffer output) {
+        encrypt(input, key, output);
+    }
+
+    private static void checkKeyLength(int keyLength, int dataLength) {
+        if (keyLength < dataLength) {
+            throw new IllegalArgumentException("Key must be at least as long as plaintext for OTP encryption!");
+        }
+    }
+}
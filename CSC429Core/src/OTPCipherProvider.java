@@ -0,0 +1,94 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * OTPCipherProvider offers the One-Time Pad through the CipherProvider interface.
+ * The key is the pad itself, so it must be at least as long as the data; streams are XORed with
+ * consecutive key bytes one buffer at a time.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+@CipherInfo(name = "OTP", description = "Please Enter One Key that is the same length as your plaintext. ")
+public final class OTPCipherProvider implements CipherProvider {
+
+    static final int BUFFER_SIZE = 1024 * 1024;
+
+    @Override
+    public void checkKey(CipherKey key, long dataLength) {
+        if (key.isPassphrase()) {
+            throw new IllegalArgumentException("The One-Time Pad cannot use a passphrase; its key is the pad itself.");
+        }
+        checkKey(key.bytes(), dataLength);
+    }
+
+    private static void checkKey(byte[] key, long dataLength) {
+        if (key.length < dataLength) {
+            throw new IllegalArgumentException("Key must be at least as long as the data for OTP encryption and decryption! (data has "
+                    + dataLength + " bytes, key has " + key.length + ")");
+        }
+    }
+
+    @Override
+    public long encrypt(ReadableByteChannel in, WritableByteChannel out, CipherKey key, Progress progress) throws IOException {
+        try (Metrics.Span span = Metrics.start("encrypt.OTP")) {
+            long length = xor(in, out, key.bytes(), progress);
+            span.completed(length);
+            return length;
+        }
+    }
+
+    // OTP decryption is the same XOR with the same key
+    @Override
+    public long decrypt(ReadableByteChannel in, WritableByteChannel out, CipherKey key, Progress progress) throws IOException {
+        try (Metrics.Span span = Metrics.start("decrypt.OTP")) {
+            long length = xor(in, out, key.bytes(), progress);
+            span.completed(length);
+            return length;
+        }
+    }
+
+    @Override
+    public byte[] encrypt(byte[] data, CipherKey key) {
+        try (Metrics.Span span = Metrics.start("encrypt.OTP")) {
+            byte[] result = OTPCipher.encrypt(data, key.bytes());
+            span.completed(data.length);
+            return result;
+        }
+    }
+
+    @Override
+    public byte[] decrypt(byte[] data, CipherKey key) {
+        try (Metrics.Span span = Metrics.start("decrypt.OTP")) {
+            byte[] result = OTPCipher.decrypt(data, key.bytes());
+            span.completed(data.length);
+            return result;
+        }
+    }
+
+    // XOR the input with the key a buffer at a time, checking before each buffer that the key still covers it
+    private long xor(ReadableByteChannel in, WritableByteChannel out, byte[] key, Progress progress) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = 0;
+        while (true) {
+            buffer.clear();
+            while (buffer.hasRemaining() && in.read(buffer) >= 0) {
+                // keep filling until the buffer is full or the input ends
+            }
+            int length = buffer.position();
+            if (length == 0) {
+                return position;
+            }
+            checkKey(key, position + length);
+            XorKernel.xor(buffer.array(), 0, key, (int) position, buffer.array(), 0, length);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            position += length;
+            progress.advance(length);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+/**
+ * OperationWorker runs one GUI operation on a background thread so the Event Dispatch Thread stays free.
+ * The job streams through the engines with this worker as its Progress: every chunk adds to the byte
+ * count shown by the progress bar, and once the user cancels, the next chunk throws CancellationException,
+ * so even a multi-gigabyte stream stops within one chunk. The callbacks always run on the EDT.
+ * SwingWorker calls done() as soon as it is cancelled, while the job may still be writing, so onFinish
+ * waits for both done() and the end of the background job before it runs.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+final class OperationWorker<T> extends SwingWorker<T, Void> implements Progress {
+
+    private final String name;
+    private final long totalBytes;
+    private final Job<T> job;
+    private final Consumer<T> onSuccess;
+    private final Consumer<Throwable> onFailure;
+    private final Runnable onFinish;
+    private final AtomicLong processedBytes = new AtomicLong();
+    // Taken by whichever comes first: the background thread starting the job, or done() after a cancel before it
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    // done() and the background job each count down once on the EDT; onFinish runs when both have finished
+    private int unfinished = 2;
+    private volatile long startNanos;
+
+    // totalBytes may be 0 when the size of the job is not known in advance
+    OperationWorker(String name, long totalBytes, Job<T> job, Consumer<T> onSuccess, Consumer<Throwable> onFailure,
+                    Runnable onFinish) {
+        this.name = name;
+        this.totalBytes = totalBytes;
+        this.job = job;
+        this.onSuccess = onSuccess;
+        this.onFailure = onFailure;
+        this.onFinish = onFinish;
+    }
+
+    @Override
+    protected T doInBackground() throws Exception {
+        if (!claimed.compareAndSet(false, true)) {
+            // cancelled before it started; done() has already accounted for the job
+            return null;
+        }
+        try {
+            startNanos = System.nanoTime();
+            return job.run(this);
+        } finally {
+            SwingUtilities.invokeLater(this::partFinished);
+        }
+    }
+
+    @Override
+    public void advance(long bytes) {
+        if (isCancelled()) {
+            throw new CancellationException(name + " was cancelled.");
+        }
+        long processed = processedBytes.addAndGet(bytes);
+        if (totalBytes > 0) {
+            setProgress((int) Math.min(100, processed * 100 / totalBytes));
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    long totalBytes() {
+        return totalBytes;
+    }
+
+    long processedBytes() {
+        return processedBytes.get();
+    }
+
+    // Average bytes per second since the job started
+    double throughput() {
+        long elapsed = System.nanoTime() - startNanos;
+        return startNanos == 0 || elapsed <= 0 ? 0 : processedBytes.get() * 1e9 / elapsed;
+    }
+
+    @Override
+    protected void done() {
+        try {
+            if (!isCancelled()) {
+                onSuccess.accept(get());
+            }
+        } catch (ExecutionException e) {
+            onFailure.accept(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (claimed.compareAndSet(false, true)) {
+                // the job never started and never will
+                partFinished();
+            }
+            partFinished();
+        }
+    }
+
+    // Whether the job has been cancelled but is still running until its next chunk
+    boolean isStopping() {
+        return isCancelled() && unfinished > 0;
+    }
+
+    // Called on the EDT by done() and by the end of the background job
+    private void partFinished() {
+        if (--unfinished == 0) {
+            onFinish.run();
+        }
+    }
+
+    // Work done in the background; engines called from it report to and are cancelled through progress
+    interface Job<T> {
+        T run(Progress progress) throws Exception;
+    }
+}
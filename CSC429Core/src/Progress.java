@@ -0,0 +1,18 @@
+/**
+ * Progress receives the number of bytes a long-running engine call has processed and lets the caller stop it.
+ * Engines report after every chunk they stream; a caller cancels the job by throwing CancellationException
+ * from advance, which the engine lets propagate after closing its files.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface Progress {
+
+    // Reports nowhere and never cancels
+    Progress NONE = bytes -> {
+    };
+
+    // Called after each processed chunk with its size, possibly from several worker threads at once
+    void advance(long bytes);
+}
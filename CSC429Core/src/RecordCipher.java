@@ -0,0 +1,665 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * RecordCipher is a streaming authenticated encryption format built on AES-256-GCM or ChaCha20-Poly1305.
+ * The plaintext is cut into fixed-size records and every record is sealed on its own, with its own nonce
+ * and tag, so records can be encrypted and verified in parallel and any byte range can be decrypted by
+ * reading only the records that cover it. Nothing is ever released before its record has been verified.
+ *
+ * Layout: a header, then one record per recordSize plaintext bytes (at least one, the last may be short),
+ * each stored as ciphertext followed by its 16-byte tag.
+ *
+ *   header = "C429" | version (1) | algorithm (1) | kdf (1) | reserved (1) | recordSize (4) | noncePrefix (8)
+ *            [| salt (16) | iterations (4)   only for kdf 1]
+ *   nonce  = noncePrefix | record index (4)
+ *   AAD    = header | record index (8) | 1 if this is the last record, else 0
+ *
+ * Binding the header into every record protects the parameters; the last-record flag makes truncation
+ * and appending detectable. Keys are 256-bit raw keys (kdf 0), given as 32 bytes or 64 hex digits, or
+ * passphrases (kdf 1) stretched with PBKDF2-HMAC-SHA256 over the salt and iteration count in the header,
+ * which KeyManager derives once and caches.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class RecordCipher {
+
+    static final byte[] MAGIC = {'C', '4', '2', '9'};
+    static final int VERSION = 1;
+    static final int KDF_RAW = 0;
+    static final int KDF_PBKDF2 = 1;
+    // The fixed part of the header; kdf 1 appends its salt and iteration count
+    static final int HEADER_LENGTH = 20;
+    static final int PBKDF2_PARAMETERS_LENGTH = KeyManager.SALT_LENGTH + 4;
+    private static final int ALGORITHM_OFFSET = 5;
+    private static final int KDF_OFFSET = 6;
+    static final int TAG_LENGTH = 16;
+    static final int KEY_LENGTH = 32;
+    static final int DEFAULT_RECORD_SIZE = 64 * 1024;
+    static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    // The record index fills the last four bytes of the nonce
+    static final long MAX_RECORDS = 1L << 32;
+    // Records handed to a worker at a time by the parallel file methods
+    private static final int TASK_SIZE = 1024 * 1024;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final ThreadLocal<Map<Algorithm, Cipher>> CIPHERS =
+            ThreadLocal.withInitial(() -> new EnumMap<>(Algorithm.class));
+
+    private RecordCipher() {
+    }
+
+    // Encrypt everything remaining in the input as a record stream, returning the number of plaintext bytes
+    public static long encrypt(Algorithm algorithm, CipherKey key, int recordSize, ReadableByteChannel in,
+                               WritableByteChannel out, Progress progress) throws IOException, GeneralSecurityException {
+        try (Metrics.Span span = Metrics.start("encrypt." + algorithm)) {
+            Header header = Header.create(algorithm, recordSize, key);
+            SecretKey secret = header.secretKey(key);
+            writeFully(out, header.encode());
+            ByteBuffer current = ByteBuffer.allocate(recordSize);
+            ByteBuffer next = ByteBuffer.allocate(recordSize);
+            ByteBuffer sealed = ByteBuffer.allocate(recordSize + TAG_LENGTH);
+            readFully(in, current);
+            long total = 0;
+            for (long index = 0; ; index++) {
+                // the index is part of the nonce, so it must never wrap around
+                if (index + 1 >= MAX_RECORDS) {
+                    throw new IllegalArgumentException("Input is too large for " + recordSize + "-byte records.");
+                }
+                // a record is the last one if it is short or nothing follows it
+                boolean last = current.hasRemaining() || readFully(in, next.clear()) == 0;
+                current.flip();
+                int length = current.remaining();
+                sealed.clear();
+                seal(header, secret, index, last, current, sealed);
+                writeFully(out, sealed.flip());
+                total += length;
+                progress.advance(length);
+                if (last) {
+                    span.completed(total);
+                    return total;
+                }
+                ByteBuffer swap = current;
+                current = next;
+                next = swap;
+            }
+        }
+    }
+
+    // Decrypt a record stream, writing each record only after it has been verified; returns the plaintext bytes
+    public static long decrypt(CipherKey key, ReadableByteChannel in, WritableByteChannel out, Progress progress)
+            throws IOException, GeneralSecurityException {
+        Header header = Header.read(in);
+        try (Metrics.Span span = Metrics.start("decrypt." + header.algorithm)) {
+            SecretKey secret = header.secretKey(key);
+            int recordLength = header.recordSize + TAG_LENGTH;
+            ByteBuffer current = ByteBuffer.allocate(recordLength);
+            ByteBuffer next = ByteBuffer.allocate(recordLength);
+            ByteBuffer opened = ByteBuffer.allocate(header.recordSize);
+            readFully(in, current);
+            long total = 0;
+            for (long index = 0; ; index++) {
+                if (index + 1 >= MAX_RECORDS) {
+                    throw new GeneralSecurityException("Encrypted data has more records than its nonces can number.");
+                }
+                boolean last = current.hasRemaining() || readFully(in, next.clear()) == 0;
+                current.flip();
+                if (current.remaining() < TAG_LENGTH) {
+                    throw new GeneralSecurityException("Encrypted data is truncated (record " + index + " is incomplete).");
+                }
+                opened.clear();
+                open(header, secret, index, last, current, opened);
+                writeFully(out, opened.flip());
+                total += opened.limit();
+                progress.advance(opened.limit());
+                if (last) {
+                    span.completed(total);
+                    return total;
+                }
+                ByteBuffer swap = current;
+                current = next;
+                next = swap;
+            }
+        }
+    }
+
+    // Encrypt a file on several threads; records are independent, so each is written straight to its own offset
+    public static long encryptFile(Algorithm algorithm, CipherKey key, int recordSize, Path input, Path output, int threads,
+                                   Progress progress) throws IOException, GeneralSecurityException {
+        try (Metrics.Span span = Metrics.start("encrypt." + algorithm);
+             FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             AtomicFile result = AtomicFile.createOutput(output, input)) {
+            FileChannel out = result.channel();
+            Header header = Header.create(algorithm, recordSize, key);
+            SecretKey secret = header.secretKey(key);
+            long length = in.size();
+            long records = header.records(length);
+            ByteBuffer encoded = header.encode();
+            while (encoded.hasRemaining()) {
+                out.write(encoded, encoded.position());
+            }
+            forEachRecord(records, recordSize, threads, () -> {
+                ByteBuffer plain = ByteBuffer.allocate(recordSize);
+                ByteBuffer sealed = ByteBuffer.allocate(recordSize + TAG_LENGTH);
+                return index -> {
+                    long position = index * recordSize;
+                    plain.clear().limit((int) Math.min(recordSize, length - position));
+                    readFully(in, plain, position);
+                    plain.flip();
+                    sealed.clear();
+                    seal(header, secret, index, index == records - 1, plain, sealed);
+                    writeFully(out, sealed.flip(), header.recordOffset(index));
+                    progress.advance(plain.limit());
+                };
+            });
+            result.commit();
+            span.completed(length);
+            return length;
+        }
+    }
+
+    // Decrypt a file on several threads, verifying every record; returns the plaintext bytes
+    public static long decryptFile(CipherKey key, Path input, Path output, int threads, Progress progress)
+            throws IOException, GeneralSecurityException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             AtomicFile result = AtomicFile.createOutput(output, input)) {
+            FileChannel out = result.channel();
+            Header header = Header.read(in);
+            try (Metrics.Span span = Metrics.start("decrypt." + header.algorithm)) {
+                SecretKey secret = header.secretKey(key);
+                long size = in.size();
+                long records = header.recordsInFile(size);
+                int recordSize = header.recordSize;
+                forEachRecord(records, recordSize, threads, () -> {
+                    ByteBuffer sealed = ByteBuffer.allocate(recordSize + TAG_LENGTH);
+                    ByteBuffer plain = ByteBuffer.allocate(recordSize);
+                    return index -> {
+                        long offset = header.recordOffset(index);
+                        sealed.clear().limit((int) Math.min(sealed.capacity(), size - offset));
+                        readFully(in, sealed, offset);
+                        sealed.flip();
+                        plain.clear();
+                        open(header, secret, index, index == records - 1, sealed, plain);
+                        writeFully(out, plain.flip(), index * recordSize);
+                        progress.advance(plain.limit());
+                    };
+                });
+                // only a file whose every record verified replaces the output
+                result.commit();
+                long length = header.plaintextLength(size);
+                span.completed(length);
+                return length;
+            }
+        }
+    }
+
+    // Decrypt only the records covering [offset, offset + length) of the plaintext
+    public static byte[] decryptRange(CipherKey key, FileChannel in, long offset, int length)
+            throws IOException, GeneralSecurityException {
+        Header header = Header.read(in, 0);
+        try (Metrics.Span span = Metrics.start("decrypt-range." + header.algorithm)) {
+            SecretKey secret = header.secretKey(key);
+            long size = in.size();
+            long records = header.recordsInFile(size);
+            long plaintextLength = header.plaintextLength(size);
+            if (offset < 0 || length < 0 || offset > plaintextLength - length) {
+                throw new IllegalArgumentException("Range [" + offset + ", " + (offset + length) + ") is outside the "
+                        + plaintextLength + " bytes of plaintext.");
+            }
+            byte[] result = new byte[length];
+            ByteBuffer sealed = ByteBuffer.allocate(header.recordSize + TAG_LENGTH);
+            ByteBuffer plain = ByteBuffer.allocate(header.recordSize);
+            int done = 0;
+            while (done < length) {
+                long position = offset + done;
+                long index = position / header.recordSize;
+                long recordOffset = header.recordOffset(index);
+                sealed.clear().limit((int) Math.min(sealed.capacity(), size - recordOffset));
+                readFully(in, sealed, recordOffset);
+                sealed.flip();
+                plain.clear();
+                open(header, secret, index, index == records - 1, sealed, plain);
+                int from = (int) (position - index * header.recordSize);
+                int count = Math.min(length - done, plain.position() - from);
+                plain.get(from, result, done, count);
+                done += count;
+            }
+            span.completed(length);
+            return result;
+        }
+    }
+
+    // Plaintext length of an encrypted file, read from its size and header without decrypting anything
+    public static long plaintextLength(FileChannel in) throws IOException, GeneralSecurityException {
+        return Header.read(in, 0).plaintextLength(in.size());
+    }
+
+    // Algorithm of an encrypted file, read from its header; decryption always follows the header
+    public static Algorithm algorithm(FileChannel in) throws IOException, GeneralSecurityException {
+        return Header.read(in, 0).algorithm;
+    }
+
+    // Algorithm named by the first HEADER_LENGTH bytes of a record stream, for streams that cannot be read twice
+    public static Algorithm algorithm(byte[] start) throws GeneralSecurityException {
+        if (start.length < HEADER_LENGTH || !Arrays.equals(start, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new GeneralSecurityException("Input is not encrypted data of this tool (bad magic).");
+        }
+        return Algorithm.of(start[ALGORITHM_OFFSET]);
+    }
+
+    // The 256-bit key as raw bytes, which must be exactly 32 of them; text keys are decoded by hexKey first
+    static byte[] rawKey(byte[] key) {
+        if (key.length != KEY_LENGTH) {
+            throw new IllegalArgumentException("The key must be 256 bits: a key file of exactly 32 bytes (e.g. from "
+                    + "\"genpad --size 32\") or 64 hex digits; this key has " + key.length + " bytes.");
+        }
+        return key;
+    }
+
+    // Whether text is a 256-bit key written as exactly 64 hex digits
+    static boolean isHexKey(CharSequence text) {
+        if (text.length() != 2 * KEY_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.digit(text.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Decode a 256-bit key written as exactly 64 hex digits, refusing anything else
+    static byte[] hexKey(CharSequence text) {
+        if (!isHexKey(text)) {
+            throw new IllegalArgumentException("The key must be 256 bits written as exactly 64 hex digits; use a "
+                    + "passphrase for any other text.");
+        }
+        byte[] raw = new byte[KEY_LENGTH];
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            raw[i] = (byte) (Character.digit(text.charAt(2 * i), 16) << 4 | Character.digit(text.charAt(2 * i + 1), 16));
+        }
+        return raw;
+    }
+
+    private static void seal(Header header, SecretKey key, long index, boolean last, ByteBuffer plain, ByteBuffer sealed)
+            throws GeneralSecurityException {
+        Cipher cipher = header.cipher(Cipher.ENCRYPT_MODE, key, index, last);
+        cipher.doFinal(plain, sealed);
+    }
+
+    private static void open(Header header, SecretKey key, long index, boolean last, ByteBuffer sealed, ByteBuffer plain)
+            throws GeneralSecurityException {
+        Cipher cipher = header.cipher(Cipher.DECRYPT_MODE, key, index, last);
+        try {
+            cipher.doFinal(sealed, plain);
+        } catch (AEADBadTagException e) {
+            throw new AEADBadTagException("Record " + index + " failed authentication: wrong key, or the data was"
+                    + " modified, truncated or reordered.");
+        }
+    }
+
+    // This thread's cipher for the algorithm, initialized for one record of data whose header is the given bytes
+    static Cipher cipher(Algorithm algorithm, int mode, SecretKey key, byte[] noncePrefix, byte[] header, long index,
+                         boolean last) throws GeneralSecurityException {
+        Map<Algorithm, Cipher> pool = CIPHERS.get();
+        Cipher cipher = pool.get(algorithm);
+        if (cipher == null) {
+            cipher = Cipher.getInstance(algorithm.transformation);
+            pool.put(algorithm, cipher);
+        }
+        byte[] nonce = Arrays.copyOf(noncePrefix, 12);
+        ByteBuffer.wrap(nonce, 8, 4).putInt((int) index);
+        try {
+            cipher.init(mode, key, algorithm.parameters(nonce));
+        } catch (InvalidKeyException e) {
+            // ChaCha20 refuses to reuse the key and nonce of its previous initialization even for decryption,
+            // which happens when the same record is read twice in a row; a fresh instance has no such memory
+            cipher = Cipher.getInstance(algorithm.transformation);
+            cipher.init(mode, key, algorithm.parameters(nonce));
+            pool.put(algorithm, cipher);
+        }
+        cipher.updateAAD(ByteBuffer.allocate(header.length + 9).put(header).putLong(index)
+                .put((byte) (last ? 1 : 0)).array());
+        return cipher;
+    }
+
+    // Run the record job over every record index on up to the given number of tasks, a batch of records per task.
+    // The tasks run on the common ForkJoinPool, whose long-lived threads keep their CIPHERS between files
+    static void forEachRecord(long records, int recordSize, int threads, WorkerFactory workers)
+            throws IOException, GeneralSecurityException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is required.");
+        }
+        long batch = Math.max(1, TASK_SIZE / recordSize);
+        long batches = (records + batch - 1) / batch;
+        AtomicLong nextBatch = new AtomicLong();
+        // the first failure of any task; the pool would wrap checked exceptions, so the tasks keep them here
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        try {
+            for (int i = 0; i < Math.min(threads, batches); i++) {
+                tasks.add(ForkJoinPool.commonPool().submit(() -> {
+                    try {
+                        RecordJob job = workers.newWorker();
+                        for (long b = nextBatch.getAndIncrement(); b < batches; b = nextBatch.getAndIncrement()) {
+                            for (long index = b * batch; index < Math.min(records, (b + 1) * batch); index++) {
+                                job.run(index);
+                            }
+                        }
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                        nextBatch.set(batches);
+                    }
+                }));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Record processing failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Record processing interrupted", e);
+        } finally {
+            // the shared pool is not shut down, so stop the other tasks and let them finish before the caller
+            // closes the channels they write to
+            nextBatch.set(batches);
+            for (ForkJoinTask<?> task : tasks) {
+                task.quietlyJoin();
+            }
+        }
+        Exception cause = failure.get();
+        if (cause instanceof IOException) {
+            throw (IOException) cause;
+        }
+        if (cause instanceof GeneralSecurityException) {
+            throw (GeneralSecurityException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+    }
+
+    // Fill the buffer from the channel until it is full or the input ends; returns the bytes read
+    private static int readFully(ReadableByteChannel in, ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining() && in.read(buffer) >= 0) {
+            // keep reading until the buffer is full or the input ends
+        }
+        return buffer.position() - start;
+    }
+
+    static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file at offset " + (position + buffer.position()));
+            }
+        }
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    static void writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer, position + buffer.position());
+        }
+    }
+
+    // The AEAD algorithms a record stream can use, with their identifier in the header
+    public enum Algorithm {
+        AES_256_GCM(1, "AES-256-GCM", "AES/GCM/NoPadding", "AES"),
+        CHACHA20_POLY1305(2, "ChaCha20-Poly1305", "ChaCha20-Poly1305", "ChaCha20");
+
+        final int id;
+        private final String label;
+        final String transformation;
+        final String keyAlgorithm;
+
+        Algorithm(int id, String label, String transformation, String keyAlgorithm) {
+            this.id = id;
+            this.label = label;
+            this.transformation = transformation;
+            this.keyAlgorithm = keyAlgorithm;
+        }
+
+        AlgorithmParameterSpec parameters(byte[] nonce) {
+            return this == AES_256_GCM ? new GCMParameterSpec(TAG_LENGTH * 8, nonce) : new IvParameterSpec(nonce);
+        }
+
+        static Algorithm of(int id) throws GeneralSecurityException {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.id == id) {
+                    return algorithm;
+                }
+            }
+            throw new GeneralSecurityException("Unknown record cipher algorithm " + id);
+        }
+
+        // The algorithm with the given name, such as "AES-256-GCM", ignoring case
+        static Algorithm named(String name) {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.label.equalsIgnoreCase(name)) {
+                    return algorithm;
+                }
+            }
+            throw new IllegalArgumentException("Unknown cipher '" + name + "'; use AES-256-GCM or ChaCha20-Poly1305.");
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    // Creates the per-thread state of a parallel job, returning the work to do for one record index
+    interface WorkerFactory {
+        RecordJob newWorker() throws GeneralSecurityException;
+    }
+
+    interface RecordJob {
+        void run(long index) throws IOException, GeneralSecurityException;
+    }
+
+    // Parsed header of a record stream; its encoded bytes are the first part of every record's AAD
+    static final class Header {
+        final Algorithm algorithm;
+        final int kdf;
+        final int recordSize;
+        private final byte[] noncePrefix;
+        // PBKDF2 parameters of a kdf 1 header; null and 0 for a raw key
+        private final byte[] salt;
+        private final int iterations;
+        private final byte[] encoded;
+
+        private Header(Algorithm algorithm, int kdf, int recordSize, byte[] noncePrefix, byte[] salt, int iterations) {
+            this.algorithm = algorithm;
+            this.kdf = kdf;
+            this.recordSize = recordSize;
+            this.noncePrefix = noncePrefix;
+            this.salt = salt;
+            this.iterations = iterations;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH + parametersLength(kdf)).put(MAGIC)
+                    .put((byte) VERSION).put((byte) algorithm.id).put((byte) kdf).put((byte) 0).putInt(recordSize)
+                    .put(noncePrefix);
+            if (kdf == KDF_PBKDF2) {
+                header.put(salt).putInt(iterations);
+            }
+            this.encoded = header.array();
+        }
+
+        // A header with a fresh random nonce prefix; a passphrase is recorded with this session's salt for it
+        static Header create(Algorithm algorithm, int recordSize, CipherKey key) throws GeneralSecurityException {
+            if (recordSize < 1 || recordSize > MAX_RECORD_SIZE) {
+                throw new IllegalArgumentException("Record size must be between 1 and " + MAX_RECORD_SIZE + " bytes.");
+            }
+            byte[] prefix = new byte[8];
+            RANDOM.nextBytes(prefix);
+            if (key.isPassphrase()) {
+                KeyManager.DerivedKey derived = KeyManager.shared().sessionKey(key.passphrase());
+                return new Header(algorithm, KDF_PBKDF2, recordSize, prefix, derived.salt(), derived.iterations());
+            }
+            return new Header(algorithm, KDF_RAW, recordSize, prefix, null, 0);
+        }
+
+        static Header read(ReadableByteChannel in) throws IOException, GeneralSecurityException {
+            ByteBuffer fixed = ByteBuffer.allocate(HEADER_LENGTH);
+            readFully(in, fixed);
+            ByteBuffer parameters = ByteBuffer.allocate(parametersLength(fixed));
+            readFully(in, parameters);
+            return parse(fixed, parameters);
+        }
+
+        static Header read(FileChannel in, long position) throws IOException, GeneralSecurityException {
+            ByteBuffer fixed = ByteBuffer.allocate(HEADER_LENGTH);
+            readAvailable(in, fixed, position);
+            ByteBuffer parameters = ByteBuffer.allocate(parametersLength(fixed));
+            readAvailable(in, parameters, position + HEADER_LENGTH);
+            return parse(fixed, parameters);
+        }
+
+        // Read until the buffer is full or the file ends
+        private static void readAvailable(FileChannel in, ByteBuffer bytes, long position) throws IOException {
+            while (bytes.hasRemaining() && in.read(bytes, position + bytes.position()) >= 0) {
+                // read until the header is complete or the file ends
+            }
+        }
+
+        // Length of the key derivation parameters that follow a complete fixed header
+        private static int parametersLength(ByteBuffer fixed) throws GeneralSecurityException {
+            if (fixed.hasRemaining()) {
+                throw new GeneralSecurityException("Input is too short to be encrypted data.");
+            }
+            return parametersLength(fixed.get(KDF_OFFSET));
+        }
+
+        private static int parametersLength(int kdf) {
+            return kdf == KDF_PBKDF2 ? PBKDF2_PARAMETERS_LENGTH : 0;
+        }
+
+        private static Header parse(ByteBuffer bytes, ByteBuffer parameters) throws GeneralSecurityException {
+            bytes.flip();
+            byte[] magic = new byte[MAGIC.length];
+            bytes.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new GeneralSecurityException("Input is not encrypted data of this tool (bad magic).");
+            }
+            int version = bytes.get();
+            if (version != VERSION) {
+                throw new GeneralSecurityException("Unsupported format version " + version);
+            }
+            Algorithm algorithm = Algorithm.of(bytes.get());
+            int kdf = bytes.get();
+            bytes.get();
+            int recordSize = bytes.getInt();
+            if (kdf != KDF_RAW && kdf != KDF_PBKDF2) {
+                throw new GeneralSecurityException("Unsupported key derivation " + kdf);
+            }
+            if (recordSize < 1 || recordSize > MAX_RECORD_SIZE) {
+                throw new GeneralSecurityException("Invalid record size " + recordSize);
+            }
+            byte[] prefix = new byte[8];
+            bytes.get(prefix);
+            if (parameters.hasRemaining()) {
+                throw new GeneralSecurityException("Input is too short to be encrypted data.");
+            }
+            parameters.flip();
+            byte[] salt = null;
+            int iterations = 0;
+            if (kdf == KDF_PBKDF2) {
+                salt = new byte[KeyManager.SALT_LENGTH];
+                parameters.get(salt);
+                iterations = parameters.getInt();
+                if (iterations < 1 || iterations > KeyManager.MAX_ITERATIONS) {
+                    throw new GeneralSecurityException("Invalid key derivation iteration count " + iterations);
+                }
+            }
+            return new Header(algorithm, kdf, recordSize, prefix, salt, iterations);
+        }
+
+        ByteBuffer encode() {
+            return ByteBuffer.wrap(encoded.clone());
+        }
+
+        int length() {
+            return encoded.length;
+        }
+
+        // The record key: the raw key itself, or the passphrase's key derived with this header's parameters
+        SecretKey secretKey(CipherKey key) throws GeneralSecurityException {
+            if (kdf == KDF_PBKDF2) {
+                if (!key.isPassphrase()) {
+                    throw new IllegalArgumentException("This data was encrypted with a passphrase, not a 256-bit key.");
+                }
+                return KeyManager.shared().derive(key.passphrase(), salt, iterations).secretKey(algorithm.keyAlgorithm);
+            }
+            if (key.isPassphrase()) {
+                throw new IllegalArgumentException("This data was encrypted with a 256-bit key, not a passphrase.");
+            }
+            return new SecretKeySpec(rawKey(key.bytes()), algorithm.keyAlgorithm);
+        }
+
+        // Number of records for a plaintext of the given length; even an empty plaintext has one
+        long records(long plaintextLength) {
+            long records = Math.max(1, (plaintextLength + recordSize - 1) / recordSize);
+            if (records >= MAX_RECORDS) {
+                throw new IllegalArgumentException("Input is too large for " + recordSize + "-byte records.");
+            }
+            return records;
+        }
+
+        // Number of records in an encrypted file of the given size, rejecting sizes no record stream can have
+        long recordsInFile(long fileSize) throws GeneralSecurityException {
+            long body = fileSize - length();
+            long recordLength = recordSize + TAG_LENGTH;
+            long records = (body + recordLength - 1) / recordLength;
+            if (body < TAG_LENGTH || body - (records - 1) * recordLength < TAG_LENGTH) {
+                throw new GeneralSecurityException("Encrypted data is truncated or corrupt (" + fileSize + " bytes).");
+            }
+            return records;
+        }
+
+        long plaintextLength(long fileSize) throws GeneralSecurityException {
+            return fileSize - length() - recordsInFile(fileSize) * TAG_LENGTH;
+        }
+
+        long recordOffset(long index) {
+            return length() + index * (recordSize + TAG_LENGTH);
+        }
+
+        // This thread's cipher for the algorithm, initialized for one record
+        Cipher cipher(int mode, SecretKey key, long index, boolean last) throws GeneralSecurityException {
+            return RecordCipher.cipher(algorithm, mode, key, noncePrefix, encoded, index, last);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+
+/**
+ * RecordCipherProvider offers a RecordCipher algorithm through the CipherProvider interface.
+ * Streams are sealed record by record; whole files are sealed in parallel. Decryption reads the algorithm
+ * from the header, so either provider can open data written by the other.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+abstract class RecordCipherProvider implements CipherProvider {
+
+    private final RecordCipher.Algorithm algorithm;
+
+    RecordCipherProvider(RecordCipher.Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    // Any amount of data can be encrypted; a raw key must be 256 bits, a passphrase is stretched by KeyManager
+    @Override
+    public void checkKey(CipherKey key, long dataLength) {
+        if (!key.isPassphrase()) {
+            RecordCipher.rawKey(key.bytes());
+        }
+    }
+
+    // Typed text is a 256-bit key only when it is exactly 64 hex digits; any other text is a passphrase
+    @Override
+    public CipherKey keyFromText(String text) {
+        return RecordCipher.isHexKey(text)
+                ? CipherKey.raw(RecordCipher.hexKey(text))
+                : CipherKey.passphrase(text.toCharArray());
+    }
+
+    @Override
+    public long encrypt(ReadableByteChannel in, WritableByteChannel out, CipherKey key, Progress progress)
+            throws IOException, GeneralSecurityException {
+        return RecordCipher.encrypt(algorithm, key, RecordCipher.DEFAULT_RECORD_SIZE, in, out, progress);
+    }
+
+    @Override
+    public long decrypt(ReadableByteChannel in, WritableByteChannel out, CipherKey key, Progress progress)
+            throws IOException, GeneralSecurityException {
+        return RecordCipher.decrypt(key, in, out, progress);
+    }
+
+    @Override
+    public long encryptFile(Path input, Path output, CipherKey key, int threads, Progress progress)
+            throws IOException, GeneralSecurityException {
+        return RecordCipher.encryptFile(algorithm, key, RecordCipher.DEFAULT_RECORD_SIZE, input, output, threads, progress);
+    }
+
+    @Override
+    public long decryptFile(Path input, Path output, CipherKey key, int threads, Progress progress)
+            throws IOException, GeneralSecurityException {
+        return RecordCipher.decryptFile(key, input, output, threads, progress);
+    }
+}
@@ -0,0 +1,368 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * SignatureService signs and verifies files with Ed25519, ECDSA or RSA keys from a local keystore
+ * (PKCS12 or JKS, e.g. created with "keytool -genkeypair -keyalg Ed25519 -keystore keys.p12").
+ *
+ * Each keystore is loaded once and its keys are cached until the file changes. Files are streamed from disk.
+ * ECDSA and RSA sign the SHA-256 digest of the file exactly as SHA256withECDSA / SHA256withRSA would sign the
+ * file itself. Ed25519 keys sign the file with plain Ed25519 (RFC 8032), fed to the Signature in chunks; Ed25519
+ * reads its message twice, so the JDK keeps the whole file in memory while signing, and files of 2 GB or more
+ * are refused. Whole lists of files can be signed or verified in parallel.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class SignatureService {
+
+    // DER prefix of a PKCS#1 DigestInfo for SHA-256, needed when RSA signs a precomputed digest
+    private static final byte[] SHA256_DIGEST_INFO = {
+        0x30, 0x31, 0x30, 0x0d, 0x06, 0x09, 0x60, (byte) 0x86, 0x48, 0x01, 0x65, 0x03, 0x04, 0x02, 0x01, 0x05, 0x00, 0x04, 0x20
+    };
+
+    // Largest file Ed25519 can sign: the JDK collects the whole message in one byte array
+    static final long MAX_ED25519_FILE = Integer.MAX_VALUE - 8;
+    // Bytes read from the file per Signature.update for Ed25519
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    // Random salt for the password fingerprints kept next to cached keys
+    private static final byte[] PASSWORD_SALT = new byte[16];
+
+    static {
+        new SecureRandom().nextBytes(PASSWORD_SALT);
+    }
+
+    private static final Map<Path, LoadedStore> STORES = new HashMap<>();
+    private static final ThreadLocal<Map<String, Signature>> SIGNATURES = ThreadLocal.withInitial(HashMap::new);
+
+    private SignatureService() {
+    }
+
+    // Sign a file with the private key stored under alias
+    public static byte[] sign(Path keystore, char[] password, String alias, Path file) throws IOException, GeneralSecurityException {
+        return sign(keystore, password, alias, file, Progress.NONE);
+    }
+
+    // Sign a file, reporting each buffer of the digest pass to progress
+    public static byte[] sign(Path keystore, char[] password, String alias, Path file, Progress progress)
+            throws IOException, GeneralSecurityException {
+        return key(keystore, password, alias).signFile(file, progress);
+    }
+
+    // Sign an in-memory message with the private key stored under alias
+    public static byte[] sign(Path keystore, char[] password, String alias, byte[] message) throws IOException, GeneralSecurityException {
+        return key(keystore, password, alias).signMessage(message);
+    }
+
+    // Verify a file's signature with the certificate stored under alias
+    public static boolean verify(Path keystore, char[] password, String alias, Path file, byte[] signature)
+            throws IOException, GeneralSecurityException {
+        return key(keystore, password, alias).verifyFile(file, signature);
+    }
+
+    // Sign every file in parallel; the result holds a signature or the failure for each file
+    public static Map<Path, Outcome> signAll(Path keystore, char[] password, String alias, List<Path> files, int threads)
+            throws IOException, GeneralSecurityException, InterruptedException {
+        SigningKey key = key(keystore, password, alias);
+        return runAll(files, threads, file -> new Outcome(key.signFile(file, Progress.NONE), null));
+    }
+
+    // Verify every (file, signature) pair in parallel
+    public static Map<Path, Outcome> verifyAll(Path keystore, char[] password, String alias, Map<Path, byte[]> signatures,
+                                               int threads) throws IOException, GeneralSecurityException, InterruptedException {
+        SigningKey key = key(keystore, password, alias);
+        return runAll(new ArrayList<>(signatures.keySet()), threads,
+                file -> new Outcome(null, key.verifyFile(file, signatures.get(file))));
+    }
+
+    // First alias of the keystore that holds a private key, for callers that do not name one
+    public static String defaultAlias(Path keystore, char[] password) throws IOException, GeneralSecurityException {
+        KeyStore store = store(keystore, password).keyStore;
+        for (String alias : Collections.list(store.aliases())) {
+            if (store.isKeyEntry(alias)) {
+                return alias;
+            }
+        }
+        throw new GeneralSecurityException("Keystore " + keystore + " does not contain a private key.");
+    }
+
+    // Name of the signature scheme used for the key under alias, e.g. "Ed25519" or "SHA256withECDSA"
+    public static String scheme(Path keystore, char[] password, String alias) throws IOException, GeneralSecurityException {
+        return key(keystore, password, alias).scheme;
+    }
+
+    private static Map<Path, Outcome> runAll(List<Path> files, int threads, FileTask task) throws InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<Outcome>> tasks = new ArrayList<>(files.size());
+            for (Path file : files) {
+                tasks.add(pool.submit(() -> {
+                    try {
+                        return task.run(file);
+                    } catch (IOException | GeneralSecurityException e) {
+                        return new Outcome(null, null, e.getMessage());
+                    }
+                }));
+            }
+            Map<Path, Outcome> results = new LinkedHashMap<>();
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    results.put(files.get(i), tasks.get(i).get());
+                } catch (ExecutionException e) {
+                    results.put(files.get(i), new Outcome(null, null, String.valueOf(e.getCause())));
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Cached key material for alias, loading the keystore only if it is new or has changed on disk
+    private static SigningKey key(Path keystore, char[] password, String alias) throws IOException, GeneralSecurityException {
+        LoadedStore store = store(keystore, password);
+        synchronized (store) {
+            SigningKey key = store.keys.get(alias);
+            if (key == null) {
+                if (!store.keyStore.containsAlias(alias)) {
+                    throw new GeneralSecurityException("Keystore " + keystore + " has no entry named " + alias);
+                }
+                Key privateKey = store.keyStore.getKey(alias, password);
+                Certificate certificate = store.keyStore.getCertificate(alias);
+                if (certificate == null) {
+                    throw new GeneralSecurityException("Keystore entry " + alias + " has no certificate.");
+                }
+                key = new SigningKey((PrivateKey) privateKey, certificate.getPublicKey());
+                store.keys.put(alias, key);
+            }
+            return key;
+        }
+    }
+
+    private static LoadedStore store(Path keystore, char[] password) throws IOException, GeneralSecurityException {
+        Path path = keystore.toAbsolutePath().normalize();
+        FileTime modified = Files.getLastModifiedTime(path);
+        byte[] fingerprint = fingerprint(password);
+        synchronized (STORES) {
+            LoadedStore store = STORES.get(path);
+            if (store != null && store.modified.equals(modified)) {
+                if (!MessageDigest.isEqual(store.passwordFingerprint, fingerprint)) {
+                    throw new UnrecoverableKeyException("Wrong password for keystore " + keystore);
+                }
+                return store;
+            }
+            KeyStore keyStore = KeyStore.getInstance(path.toFile(), password);
+            store = new LoadedStore(keyStore, modified, fingerprint);
+            STORES.put(path, store);
+            return store;
+        }
+    }
+
+    private static byte[] fingerprint(char[] password) throws GeneralSecurityException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(PASSWORD_SALT);
+        ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+        try {
+            digest.update(encoded);
+            return digest.digest();
+        } finally {
+            Arrays.fill(encoded.array(), (byte) 0);
+        }
+    }
+
+    private interface FileTask {
+        Outcome run(Path file) throws IOException, GeneralSecurityException;
+    }
+
+    // Result for one file of a batch: a signature, a verification verdict, or an error message
+    public static final class Outcome {
+        public final byte[] signature;
+        public final Boolean valid;
+        public final String error;
+
+        Outcome(byte[] signature, Boolean valid) {
+            this(signature, valid, null);
+        }
+
+        Outcome(byte[] signature, Boolean valid, String error) {
+            this.signature = signature;
+            this.valid = valid;
+            this.error = error;
+        }
+    }
+
+    // A keystore as loaded from disk, with the keys taken out of it so far
+    private static final class LoadedStore {
+        final KeyStore keyStore;
+        final FileTime modified;
+        final byte[] passwordFingerprint;
+        final Map<String, SigningKey> keys = new HashMap<>();
+
+        LoadedStore(KeyStore keyStore, FileTime modified, byte[] passwordFingerprint) {
+            this.keyStore = keyStore;
+            this.modified = modified;
+            this.passwordFingerprint = passwordFingerprint;
+        }
+    }
+
+    // Key pair of one alias together with the digest and raw signature scheme it uses; Ed25519 has no digest
+    // and signs the message itself
+    private static final class SigningKey {
+        final PrivateKey privateKey;
+        final PublicKey publicKey;
+        final String scheme;
+        private final String digestAlgorithm;
+        private final String rawAlgorithm;
+
+        SigningKey(PrivateKey privateKey, PublicKey publicKey) throws GeneralSecurityException {
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+            switch (publicKey.getAlgorithm()) {
+                case "Ed25519":
+                case "EdDSA":
+                    scheme = "Ed25519";
+                    digestAlgorithm = null;
+                    rawAlgorithm = "Ed25519";
+                    break;
+                case "EC":
+                    scheme = "SHA256withECDSA";
+                    digestAlgorithm = "SHA-256";
+                    rawAlgorithm = "NONEwithECDSA";
+                    break;
+                case "RSA":
+                    scheme = "SHA256withRSA";
+                    digestAlgorithm = "SHA-256";
+                    rawAlgorithm = "NONEwithRSA";
+                    break;
+                default:
+                    throw new GeneralSecurityException("Unsupported key algorithm: " + publicKey.getAlgorithm());
+            }
+        }
+
+        byte[] signFile(Path file, Progress progress) throws IOException, GeneralSecurityException {
+            try (Metrics.Span span = Metrics.start("sign." + scheme)) {
+                Signature signature = signer();
+                if (digestAlgorithm == null) {
+                    update(signature, file, progress);
+                } else {
+                    signature.update(encode(digest(file, progress)));
+                }
+                byte[] signed = signature.sign();
+                span.completed(Files.size(file));
+                return signed;
+            }
+        }
+
+        byte[] signMessage(byte[] message) throws GeneralSecurityException {
+            try (Metrics.Span span = Metrics.start("sign." + scheme)) {
+                Signature signature = signer();
+                signature.update(digestAlgorithm == null ? message : encode(digest(message)));
+                byte[] signed = signature.sign();
+                span.completed(message.length);
+                return signed;
+            }
+        }
+
+        boolean verifyFile(Path file, byte[] signatureBytes) throws IOException, GeneralSecurityException {
+            try (Metrics.Span span = Metrics.start("verify." + scheme)) {
+                Signature signature = pooled(rawAlgorithm);
+                signature.initVerify(publicKey);
+                if (digestAlgorithm == null) {
+                    update(signature, file, Progress.NONE);
+                } else {
+                    signature.update(encode(digest(file, Progress.NONE)));
+                }
+                boolean valid;
+                try {
+                    valid = signature.verify(signatureBytes);
+                } catch (SignatureException e) {
+                    valid = false;
+                }
+                span.completed(Files.size(file));
+                return valid;
+            }
+        }
+
+        // Feed the whole file to an Ed25519 signature a chunk at a time
+        private static void update(Signature signature, Path file, Progress progress)
+                throws IOException, GeneralSecurityException {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (in.size() > MAX_ED25519_FILE) {
+                    throw new GeneralSecurityException("Ed25519 cannot sign files of 2 GB or more (" + file
+                            + "); use an ECDSA or RSA key.");
+                }
+                ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+                while (in.read(buffer.clear()) >= 0) {
+                    progress.advance(buffer.position());
+                    signature.update(buffer.flip());
+                }
+            }
+        }
+
+        private byte[] digest(Path file, Progress progress) throws IOException, GeneralSecurityException {
+            return DigestEngine.digest(file, List.of(digestAlgorithm), progress).get(digestAlgorithm);
+        }
+
+        private byte[] digest(byte[] message) throws GeneralSecurityException {
+            return DigestEngine.digest(message, List.of(digestAlgorithm)).get(digestAlgorithm);
+        }
+
+        private Signature signer() throws GeneralSecurityException {
+            if (privateKey == null) {
+                throw new GeneralSecurityException("Keystore entry has no private key to sign with.");
+            }
+            Signature signature = pooled(rawAlgorithm);
+            signature.initSign(privateKey);
+            return signature;
+        }
+
+        private byte[] encode(byte[] digest) {
+            if (!rawAlgorithm.equals("NONEwithRSA")) {
+                return digest;
+            }
+            byte[] digestInfo = new byte[SHA256_DIGEST_INFO.length + digest.length];
+            System.arraycopy(SHA256_DIGEST_INFO, 0, digestInfo, 0, SHA256_DIGEST_INFO.length);
+            System.arraycopy(digest, 0, digestInfo, SHA256_DIGEST_INFO.length, digest.length);
+            return digestInfo;
+        }
+
+        private static Signature pooled(String algorithm) throws GeneralSecurityException {
+            Map<String, Signature> pool = SIGNATURES.get();
+            Signature signature = pool.get(algorithm);
+            if (signature == null) {
+                signature = Signature.getInstance(algorithm);
+                pool.put(algorithm, signature);
+            }
+            return signature;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * XorKernel is the allocation-free core of the One-Time Pad.
+ * It XORs caller-supplied buffers eight bytes at a time through long lanes, over byte arrays as well as
+ * heap and direct ByteBuffers, and finishes any remaining tail with the scalar byte loop.
+ *
+ * Setting the system property csc429.xor.scalar=true forces the scalar path everywhere.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class XorKernel {
+
+    // Views that read and write a long at any byte offset, ignoring the buffer's own byte order
+    private static final VarHandle ARRAY_LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle BUFFER_LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // Below this many bytes the lane setup is not worth it
+    private static final int MIN_LANE_LENGTH = 16;
+    private static final boolean SCALAR_ONLY = Boolean.getBoolean("csc429.xor.scalar");
+
+    private XorKernel() {
+    }
+
+    // XOR len bytes of src with key into dst; dst may be the same array as src for in-place use
+    public static void xor(byte[] src, int srcOff, byte[] key, int keyOff, byte[] dst, int dstOff, int len) {
+        checkRange(src.length, srcOff, len);
+        checkRange(key.length, keyOff, len);
+        checkRange(dst.length, dstOff, len);
+        int i = 0;
+        if (!SCALAR_ONLY && len >= MIN_LANE_LENGTH) {
+            for (int lanes = len & ~7; i < lanes; i += 8) {
+                long value = (long) ARRAY_LONGS.get(src, srcOff + i) ^ (long) ARRAY_LONGS.get(key, keyOff + i);
+                ARRAY_LONGS.set(dst, dstOff + i, value);
+            }
+        }
+        for (; i < len; i++) {
+            dst[dstOff + i] = (byte) (src[srcOff + i] ^ key[keyOff + i]);
+        }
+    }
+
+    // XOR data in place with len bytes of key
+    public static void xorInPlace(byte[] data, int off, byte[] key, int keyOff, int len) {
+        xor(data, off, key, keyOff, data, off, len);
+    }
+
+    // XOR the remaining bytes of src with key into dst, advancing all three positions
+    public static void xor(ByteBuffer src, ByteBuffer key, ByteBuffer dst) {
+        int len = src.remaining();
+        if (key.remaining() < len) {
+            throw new IllegalArgumentException("Key must be at least as long as the data for OTP encryption!");
+        }
+        if (dst.remaining() < len) {
+            throw new IllegalArgumentException("Destination buffer is too small: need " + len + " bytes");
+        }
+        int s = src.position();
+        int k = key.position();
+        int d = dst.position();
+        int i = 0;
+        if (!SCALAR_ONLY && len >= MIN_LANE_LENGTH) {
+            for (int lanes = len & ~7; i < lanes; i += 8) {
+                long value = (long) BUFFER_LONGS.get(src, s + i) ^ (long) BUFFER_LONGS.get(key, k + i);
+                BUFFER_LONGS.set(dst, d + i, value);
+            }
+        }
+        for (; i < len; i++) {
+            dst.put(d + i, (byte) (src.get(s + i) ^ key.get(k + i)));
+        }
+        src.position(s + len);
+        key.position(k + len);
+        dst.position(d + len);
+    }
+
+    // Reference byte-at-a-time implementation, identical to the original encryptWithOTP loop
+    public static void xorScalar(byte[] src, int srcOff, byte[] key, int keyOff, byte[] dst, int dstOff, int len) {
+        checkRange(src.length, srcOff, len);
+        checkRange(key.length, keyOff, len);
+        checkRange(dst.length, dstOff, len);
+        for (int i = 0; i < len; i++) {
+            dst[dstOff + i] = (byte) (src[srcOff + i] ^ key[keyOff + i]);
+        }
+    }
+
+    private static void checkRange(int arrayLength, int offset, int len) {
+        if (offset < 0 || len < 0 || offset > arrayLength - len) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + len
+                    + ") out of bounds for length " + arrayLength);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * AtomicFileTest checks that a target only ever holds its old or its complete new content, that no temporary
+ * file is left behind, and that replacing a file keeps symbolic links pointing at it and its POSIX permissions.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+class AtomicFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void targetChangesOnlyOnCommit() throws IOException {
+        Path target = Files.writeString(directory.resolve("target.txt"), "old");
+        try (AtomicFile file = AtomicFile.create(target)) {
+            file.write("new content");
+            assertEquals("old", Files.readString(target));
+        }
+        assertEquals("old", Files.readString(target), "closed without commit");
+        try (AtomicFile file = AtomicFile.create(target, AtomicFile.Durability.FULL)) {
+            file.write(ByteBuffer.wrap("new ".getBytes(StandardCharsets.UTF_8)));
+            file.write("content 🔒");
+            file.commit();
+        }
+        assertEquals("new content 🔒", Files.readString(target));
+        AtomicFile.write(directory.resolve("created.bin"), new byte[] {1, 2, 3});
+        assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(directory.resolve("created.bin")));
+        assertEquals(List.of("created.bin", "target.txt"), fileNames(directory));
+    }
+
+    @Test
+    void outputsMustNotBeInputs() throws IOException {
+        Path input = Files.writeString(directory.resolve("input"), "data");
+        assertThrows(IllegalArgumentException.class, () -> AtomicFile.createOutput(input, input).close());
+        assertThrows(IllegalArgumentException.class,
+                () -> AtomicFile.createOutput(directory.resolve(".").resolve("input"), null, input).close());
+        assertEquals("data", Files.readString(input));
+    }
+
+    @Test
+    void symbolicLinksAreKept() throws IOException {
+        Path data = Files.createDirectory(directory.resolve("data"));
+        Path real = Files.writeString(data.resolve("real.txt"), "old");
+        Path link = Files.createSymbolicLink(directory.resolve("link.txt"), Path.of("data", "real.txt"));
+        AtomicFile.write(link, "new".getBytes(StandardCharsets.UTF_8));
+        assertTrue(Files.isSymbolicLink(link));
+        assertEquals("new", Files.readString(real));
+
+        // a link to a file that does not exist yet creates that file
+        Path dangling = Files.createSymbolicLink(directory.resolve("dangling.txt"), data.resolve("later.txt"));
+        AtomicFile.write(dangling, "later".getBytes(StandardCharsets.UTF_8));
+        assertTrue(Files.isSymbolicLink(dangling));
+        assertEquals("later", Files.readString(data.resolve("later.txt")));
+        assertEquals(List.of("later.txt", "real.txt"), fileNames(data));
+    }
+
+    @Test
+    void permissionsAreKept() throws IOException {
+        assumeTrue(Files.getFileAttributeView(directory, PosixFileAttributeView.class) != null, "POSIX file system");
+        Path target = Files.writeString(directory.resolve("secret.txt"), "old");
+        Files.setPosixFilePermissions(target, PosixFilePermissions.fromString("rw-------"));
+        AtomicFile.write(target, "new".getBytes(StandardCharsets.UTF_8));
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(target)));
+        Files.setPosixFilePermissions(target, PosixFilePermissions.fromString("rwxr-x---"));
+        AtomicFile.write(target, "newer".getBytes(StandardCharsets.UTF_8));
+        assertEquals("rwxr-x---", PosixFilePermissions.toString(Files.getPosixFilePermissions(target)));
+        assertFalse(Files.isSymbolicLink(target));
+    }
+
+    private static List<String> fileNames(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile).map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+}
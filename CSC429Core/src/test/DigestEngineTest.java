@@ -0,0 +1,69 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32C;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * DigestEngineTest checks the one-pass digests against published test vectors and against each algorithm
+ * computed on its own, for files that span several read buffers, and that results keep the requested order.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+class DigestEngineTest {
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void knownVectors() throws Exception {
+        Map<String, byte[]> abc = DigestEngine.digest("abc".getBytes(StandardCharsets.US_ASCII),
+                List.of("SHA-256", "SHA3-256"));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                DigestEngine.toHex(abc.get("SHA-256")));
+        assertEquals("3a985da74fe225b2045c172d6bd390bd855f086e3e9d525b46bfe24511431532",
+                DigestEngine.toHex(abc.get("SHA3-256")));
+        // the CRC-32C check value
+        Map<String, byte[]> check = DigestEngine.digest("123456789".getBytes(StandardCharsets.US_ASCII),
+                List.of(DigestEngine.CRC32C_NAME));
+        assertEquals("e3069283", DigestEngine.toHex(check.get(DigestEngine.CRC32C_NAME)));
+    }
+
+    @Test
+    void onePassMatchesEachAlgorithmAlone() throws Exception {
+        for (int length : new int[] {0, 1, DigestEngine.BUFFER_SIZE, 2 * DigestEngine.BUFFER_SIZE + 333}) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            Path file = Files.write(directory.resolve("data" + length), data);
+            Map<String, byte[]> digests = DigestEngine.digest(file, DigestEngine.DEFAULT_ALGORITHMS);
+            assertEquals(DigestEngine.DEFAULT_ALGORITHMS, List.copyOf(digests.keySet()), "requested order");
+            for (String algorithm : List.of("SHA-256", "SHA-512", "SHA3-256")) {
+                assertArrayEquals(MessageDigest.getInstance(algorithm).digest(data), digests.get(algorithm),
+                        algorithm + " of " + length + " bytes");
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(data);
+            assertEquals(String.format("%08x", crc.getValue()), DigestEngine.toHex(digests.get("CRC32C")));
+            assertArrayEquals(digests.get("SHA-512"), DigestEngine.digest(data, List.of("SHA-512")).get("SHA-512"));
+        }
+    }
+
+    @Test
+    void emptyAndRepeatedAlgorithmListsAreRefused() {
+        byte[] data = new byte[10];
+        assertThrows(IllegalArgumentException.class, () -> DigestEngine.digest(data, List.of()));
+        assertThrows(IllegalArgumentException.class, () -> DigestEngine.digest(data, List.of("SHA-256", "sha-256")));
+    }
+}
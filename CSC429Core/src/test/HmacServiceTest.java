@@ -0,0 +1,90 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidKeyException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * HmacServiceTest checks that a Key set up once gives the same tags as a freshly initialized Mac for every
+ * message, and that verifyAll reports each file of a mixed batch as VALID, INVALID or ERROR.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+class HmacServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(8);
+    private final byte[] keyBytes = randomBytes(32);
+
+    @Test
+    void keyTagsEveryMessageFromItsOwnState() throws Exception {
+        for (String algorithm : new String[] {HmacService.HMAC_SHA256, HmacService.HMAC_SHA512}) {
+            HmacService.Key key = HmacService.key(algorithm, keyBytes);
+            for (int length : new int[] {0, 1, 200, 3 * HmacService.BUFFER_SIZE / 2}) {
+                byte[] message = randomBytes(length);
+                byte[] expected = reference(algorithm, message);
+                assertArrayEquals(expected, HmacService.tag(key, message), algorithm + " of " + length + " bytes");
+                Path file = Files.write(directory.resolve("m" + length), message);
+                assertArrayEquals(expected, HmacService.tag(key, file, Progress.NONE), algorithm + " of file " + length);
+                assertArrayEquals(expected, HmacService.tag(algorithm, keyBytes, message));
+            }
+        }
+        assertThrows(InvalidKeyException.class, () -> HmacService.key(HmacService.HMAC_SHA256, new byte[0]));
+    }
+
+    @Test
+    void verifyAllReportsEachFile() throws Exception {
+        HmacService.Key key = HmacService.key(HmacService.HMAC_SHA256, keyBytes);
+        Map<Path, byte[]> expected = new LinkedHashMap<>();
+        Map<Path, HmacService.Result> outcomes = new LinkedHashMap<>();
+        for (int i = 0; i < 12; i++) {
+            byte[] message = randomBytes(1000 + i);
+            Path file = Files.write(directory.resolve("file" + i), message);
+            byte[] tag = reference(HmacService.HMAC_SHA256, message);
+            if (i % 3 == 1) {
+                tag[i] ^= 0x01;
+                outcomes.put(file, HmacService.Result.INVALID);
+            } else if (i % 3 == 2) {
+                Files.delete(file);
+                outcomes.put(file, HmacService.Result.ERROR);
+            } else {
+                outcomes.put(file, HmacService.Result.VALID);
+            }
+            expected.put(file, tag);
+        }
+        // a tag of the wrong length is a mismatch, not an error
+        Path shortTag = Files.write(directory.resolve("short"), "short".getBytes(StandardCharsets.UTF_8));
+        expected.put(shortTag, new byte[4]);
+        outcomes.put(shortTag, HmacService.Result.INVALID);
+
+        Map<Path, HmacService.Result> results = HmacService.verifyAll(key, expected, 4);
+        assertEquals(outcomes, results);
+        assertEquals(expected.keySet().stream().toList(), results.keySet().stream().toList(), "input order");
+    }
+
+    // The tag from a Mac initialized just for this message
+    private byte[] reference(String algorithm, byte[] message) throws Exception {
+        Mac mac = Mac.getInstance(algorithm);
+        mac.init(new SecretKeySpec(keyBytes, algorithm));
+        return mac.doFinal(message);
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
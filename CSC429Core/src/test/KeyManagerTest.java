@@ -0,0 +1,85 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import org.junit.jupiter.api.Test;
+
+/**
+ * KeyManagerTest checks the derived key cache: a key is derived once and handed out as the same SecretKey,
+ * and a key that is evicted, expires or is cleared is zeroed, together with every SecretKey taken from it.
+ * The tests use a low iteration count, since the cache behaves the same for any count.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+class KeyManagerTest {
+
+    private static final int ITERATIONS = 1000;
+    private static final byte[] SALT = new byte[KeyManager.SALT_LENGTH];
+
+    @Test
+    void keysAreDerivedOnceAndShared() throws Exception {
+        KeyManager manager = new KeyManager(4, 60_000);
+        KeyManager.DerivedKey key = manager.derive("passphrase".toCharArray(), SALT, ITERATIONS);
+        assertSame(key, manager.derive("passphrase".toCharArray(), SALT, ITERATIONS));
+        assertNotSame(key, manager.derive("passphrase".toCharArray(), SALT, ITERATIONS + 1));
+        SecretKey aes = key.secretKey("AES");
+        assertSame(aes, key.secretKey("AES"));
+        assertEquals("ChaCha20", key.secretKey("ChaCha20").getAlgorithm());
+        assertArrayEquals(reference("passphrase", ITERATIONS), aes.getEncoded());
+        assertEquals(2, manager.size());
+    }
+
+    @Test
+    void evictedKeysAreZeroed() throws Exception {
+        KeyManager manager = new KeyManager(2, 60_000);
+        KeyManager.DerivedKey first = manager.derive("first".toCharArray(), SALT, ITERATIONS);
+        SecretKey taken = first.secretKey("AES");
+        manager.derive("second".toCharArray(), SALT, ITERATIONS);
+        assertFalse(first.isDestroyed());
+        manager.derive("third".toCharArray(), SALT, ITERATIONS);
+        assertDestroyed(first, taken);
+        assertEquals(2, manager.size());
+        // deriving it again gives a new key with the same bytes
+        KeyManager.DerivedKey again = manager.derive("first".toCharArray(), SALT, ITERATIONS);
+        assertArrayEquals(reference("first", ITERATIONS), again.secretKey("AES").getEncoded());
+    }
+
+    @Test
+    void expiredAndClearedKeysAreZeroed() throws Exception {
+        KeyManager manager = new KeyManager(4, 50);
+        KeyManager.DerivedKey expiring = manager.derive("expiring".toCharArray(), SALT, ITERATIONS);
+        SecretKey taken = expiring.secretKey("AES");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!expiring.isDestroyed() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertDestroyed(expiring, taken);
+        assertEquals(0, manager.size());
+
+        manager = new KeyManager(4, 60_000);
+        KeyManager.DerivedKey cleared = manager.derive("cleared".toCharArray(), SALT, ITERATIONS);
+        taken = cleared.secretKey("ChaCha20");
+        manager.clear();
+        assertDestroyed(cleared, taken);
+    }
+
+    private static void assertDestroyed(KeyManager.DerivedKey key, SecretKey taken) {
+        assertTrue(key.isDestroyed());
+        assertTrue(taken.isDestroyed());
+        assertThrows(IllegalStateException.class, () -> key.secretKey("AES"));
+        assertThrows(IllegalStateException.class, taken::getEncoded);
+    }
+
+    private static byte[] reference(String passphrase, int iterations) throws Exception {
+        PBEKeySpec spec = new PBEKeySpec(passphrase.toCharArray(), SALT, iterations, KeyManager.KEY_LENGTH * 8);
+        return SecretKeyFactory.getInstance(KeyManager.ALGORITHM).generateSecret(spec).getEncoded();
+    }
+}
@@ -0,0 +1,182 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * RecordCipherTest checks that a record stream decrypts only exactly as it was written: records that are
+ * swapped, dropped, duplicated, cut short or modified, a modified header and a wrong key are all refused, by
+ * the streaming and by the parallel file methods alike. It also pins down which text is accepted as a raw key.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+class RecordCipherTest {
+
+    private static final int RECORD_SIZE = 64;
+    private static final int RECORDS = 6;
+    // five full records and a short last one
+    private static final int PLAINTEXT_LENGTH = (RECORDS - 1) * RECORD_SIZE + 7;
+    private static final int SEALED_RECORD = RECORD_SIZE + RecordCipher.TAG_LENGTH;
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(15);
+    private final byte[] plaintext = randomBytes(PLAINTEXT_LENGTH);
+    private final byte[] keyBytes = randomBytes(RecordCipher.KEY_LENGTH);
+
+    @ParameterizedTest
+    @EnumSource(RecordCipher.Algorithm.class)
+    void roundTrips(RecordCipher.Algorithm algorithm) throws Exception {
+        byte[] sealed = encrypt(algorithm);
+        assertArrayEquals(plaintext, decrypt(sealed));
+        assertArrayEquals(plaintext, decryptFile(sealed));
+    }
+
+    @ParameterizedTest
+    @EnumSource(RecordCipher.Algorithm.class)
+    void reorderedRecordsAreRefused(RecordCipher.Algorithm algorithm) throws Exception {
+        byte[] sealed = encrypt(algorithm);
+        int first = headerLength(sealed) + SEALED_RECORD;
+        byte[] swapped = sealed.clone();
+        System.arraycopy(sealed, first, swapped, first + SEALED_RECORD, SEALED_RECORD);
+        System.arraycopy(sealed, first + SEALED_RECORD, swapped, first, SEALED_RECORD);
+        assertRefused(swapped);
+    }
+
+    // Dropping whole records from the end leaves a stream whose last record is not marked as the last one
+    @ParameterizedTest
+    @EnumSource(RecordCipher.Algorithm.class)
+    void truncatedStreamsAreRefused(RecordCipher.Algorithm algorithm) throws Exception {
+        byte[] sealed = encrypt(algorithm);
+        int lastRecord = headerLength(sealed) + (RECORDS - 1) * SEALED_RECORD;
+        assertRefused(Arrays.copyOf(sealed, lastRecord));
+        assertRefused(Arrays.copyOf(sealed, lastRecord - SEALED_RECORD));
+        assertRefused(Arrays.copyOf(sealed, sealed.length - 1));
+        assertRefused(Arrays.copyOf(sealed, headerLength(sealed) + 3));
+    }
+
+    @ParameterizedTest
+    @EnumSource(RecordCipher.Algorithm.class)
+    void appendedRecordsAreRefused(RecordCipher.Algorithm algorithm) throws Exception {
+        byte[] sealed = encrypt(algorithm);
+        int firstRecord = headerLength(sealed);
+        byte[] longer = Arrays.copyOf(sealed, sealed.length + SEALED_RECORD);
+        System.arraycopy(sealed, firstRecord, longer, sealed.length, SEALED_RECORD);
+        assertRefused(longer);
+    }
+
+    // Every byte counts: a flipped bit in the header, in any record or in any tag is caught
+    @ParameterizedTest
+    @EnumSource(RecordCipher.Algorithm.class)
+    void tamperedBytesAreRefused(RecordCipher.Algorithm algorithm) throws Exception {
+        byte[] sealed = encrypt(algorithm);
+        int header = headerLength(sealed);
+        int[] positions = {
+            RecordCipher.HEADER_LENGTH - 1,                   // last byte of the nonce prefix
+            header,                                           // first ciphertext byte
+            header + SEALED_RECORD + RECORD_SIZE,             // first tag byte of record 1
+            header + 3 * SEALED_RECORD + 10,                  // inside record 3
+            sealed.length - 1                                 // last tag byte of the last record
+        };
+        for (int position : positions) {
+            byte[] tampered = sealed.clone();
+            tampered[position] ^= 0x01;
+            assertRefused(tampered);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(RecordCipher.Algorithm.class)
+    void wrongKeyIsRefused(RecordCipher.Algorithm algorithm) throws Exception {
+        byte[] sealed = encrypt(algorithm);
+        keyBytes[0] ^= 0x01;
+        assertRefused(sealed);
+    }
+
+    // The result only replaces the output once every record verified, so a refused file leaves the old one in place
+    @Test
+    void refusedFileKeepsExistingOutput() throws Exception {
+        byte[] sealed = encrypt(RecordCipher.Algorithm.AES_256_GCM);
+        sealed[sealed.length - 1] ^= 0x01;
+        Path input = Files.write(directory.resolve("tampered.enc"), sealed);
+        Path output = Files.write(directory.resolve("existing.txt"), "keep".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(GeneralSecurityException.class,
+                () -> RecordCipher.decryptFile(CipherKey.raw(keyBytes.clone()), input, output, 3, Progress.NONE));
+        assertArrayEquals("keep".getBytes(StandardCharsets.US_ASCII), Files.readAllBytes(output));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count(), "no temporary file is left behind");
+        }
+    }
+
+    @Test
+    void onlyExactKeysAreRaw() {
+        String hex = "00112233445566778899aabbccddeeff00112233445566778899AABBCCDDEEFF";
+        assertTrue(RecordCipher.isHexKey(hex));
+        assertEquals(0x11, RecordCipher.hexKey(hex)[1]);
+        assertEquals((byte) 0xff, RecordCipher.hexKey(hex)[31]);
+        assertFalse(RecordCipher.isHexKey(hex.substring(1)));
+        assertFalse(RecordCipher.isHexKey(hex.replace('a', 'g')));
+        assertThrows(IllegalArgumentException.class, () -> RecordCipher.hexKey("correct horse battery staple!!!!"));
+        // raw keys are exactly 32 bytes; hex digits must be decoded first rather than taken as key bytes
+        assertThrows(IllegalArgumentException.class, () -> RecordCipher.rawKey(new byte[RecordCipher.KEY_LENGTH + 1]));
+        assertThrows(IllegalArgumentException.class, () -> RecordCipher.rawKey(hex.getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(RecordCipher.KEY_LENGTH, RecordCipher.rawKey(new byte[RecordCipher.KEY_LENGTH]).length);
+    }
+
+    private void assertRefused(byte[] sealed) {
+        assertThrows(GeneralSecurityException.class, () -> decrypt(sealed), "streaming decrypt");
+        assertThrows(GeneralSecurityException.class, () -> decryptFile(sealed), "file decrypt");
+    }
+
+    private byte[] encrypt(RecordCipher.Algorithm algorithm) throws IOException, GeneralSecurityException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordCipher.encrypt(algorithm, CipherKey.raw(keyBytes.clone()), RECORD_SIZE,
+                Channels.newChannel(new ByteArrayInputStream(plaintext)), Channels.newChannel(out), Progress.NONE);
+        return out.toByteArray();
+    }
+
+    private byte[] decrypt(byte[] sealed) throws IOException, GeneralSecurityException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordCipher.decrypt(CipherKey.raw(keyBytes.clone()), Channels.newChannel(new ByteArrayInputStream(sealed)),
+                Channels.newChannel(out), Progress.NONE);
+        return out.toByteArray();
+    }
+
+    private byte[] decryptFile(byte[] sealed) throws IOException, GeneralSecurityException {
+        Path input = Files.write(Files.createTempFile(directory, "sealed", ".enc"), sealed);
+        Path output = directory.resolve(input.getFileName() + ".out");
+        RecordCipher.decryptFile(CipherKey.raw(keyBytes.clone()), input, output, 3, Progress.NONE);
+        return Files.readAllBytes(output);
+    }
+
+    // The header is whatever precedes the records, which fill the rest of the stream
+    private static int headerLength(byte[] sealed) {
+        int lastRecord = PLAINTEXT_LENGTH - (RECORDS - 1) * RECORD_SIZE + RecordCipher.TAG_LENGTH;
+        return sealed.length - (RECORDS - 1) * SEALED_RECORD - lastRecord;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * SignatureServiceTest signs files with keys from keystores made by keytool and checks that the signatures are
+ * the standard ones: the JDK verifies them as Ed25519, SHA256withECDSA or SHA256withRSA over the whole file.
+ * It also checks that a modified file, or a missing one in a batch, is reported as such.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+class SignatureServiceTest {
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(9);
+
+    @ParameterizedTest
+    @CsvSource({"Ed25519, Ed25519, Ed25519", "EC, SHA256withECDSA, SHA256withECDSA", "RSA, SHA256withRSA, SHA256withRSA"})
+    void filesGetStandardSignatures(String keyAlgorithm, String scheme, String jdkAlgorithm) throws Exception {
+        Path keystore = keystore(keyAlgorithm);
+        String alias = SignatureService.defaultAlias(keystore, PASSWORD);
+        assertEquals(scheme, SignatureService.scheme(keystore, PASSWORD, alias));
+        byte[] content = new byte[200_000];
+        random.nextBytes(content);
+        Path file = Files.write(directory.resolve("data.bin"), content);
+
+        byte[] signature = SignatureService.sign(keystore, PASSWORD, alias, file);
+        Signature jdk = Signature.getInstance(jdkAlgorithm);
+        jdk.initVerify(publicKey(keystore, alias));
+        jdk.update(content);
+        assertTrue(jdk.verify(signature), "the JDK's " + jdkAlgorithm + " accepts the signature");
+        assertTrue(SignatureService.verify(keystore, PASSWORD, alias, file, signature));
+        if (keyAlgorithm.equals("Ed25519")) {
+            // Ed25519 signatures are deterministic, so a message signature equals the file signature
+            assertArrayEquals(signature, SignatureService.sign(keystore, PASSWORD, alias, content));
+        }
+
+        content[12_345] ^= 0x01;
+        Path modified = Files.write(directory.resolve("modified.bin"), content);
+        assertFalse(SignatureService.verify(keystore, PASSWORD, alias, modified, signature));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"Ed25519", "EC"})
+    void batchesReportEveryFile(String keyAlgorithm) throws Exception {
+        Path keystore = keystore(keyAlgorithm);
+        String alias = SignatureService.defaultAlias(keystore, PASSWORD);
+        Path first = Files.write(directory.resolve("first"), new byte[] {1, 2, 3});
+        Path second = Files.write(directory.resolve("second"), new byte[0]);
+        Path missing = directory.resolve("missing");
+        Map<Path, SignatureService.Outcome> signed =
+                SignatureService.signAll(keystore, PASSWORD, alias, List.of(first, second, missing), 2);
+        assertNotNull(signed.get(first).signature);
+        assertNotNull(signed.get(second).signature);
+        assertNull(signed.get(missing).signature);
+        assertNotNull(signed.get(missing).error);
+
+        Map<Path, byte[]> signatures = new LinkedHashMap<>();
+        signatures.put(first, signed.get(first).signature);
+        signatures.put(second, signed.get(first).signature);
+        signatures.put(missing, signed.get(first).signature);
+        Map<Path, SignatureService.Outcome> verified = SignatureService.verifyAll(keystore, PASSWORD, alias, signatures, 2);
+        assertEquals(Boolean.TRUE, verified.get(first).valid);
+        assertEquals(Boolean.FALSE, verified.get(second).valid);
+        assertNotNull(verified.get(missing).error);
+    }
+
+    // A PKCS12 keystore with one key pair, made the way the README describes
+    private Path keystore(String keyAlgorithm) throws Exception {
+        Path keystore = directory.resolve(keyAlgorithm + ".p12");
+        Process keytool = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "signer", "-keyalg", keyAlgorithm, "-keystore", keystore.toString(),
+                "-storepass", new String(PASSWORD), "-dname", "CN=test")
+                .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        assertEquals(0, keytool.waitFor(), "keytool exit status");
+        return keystore;
+    }
+
+    private static PublicKey publicKey(Path keystore, String alias) throws Exception {
+        return KeyStore.getInstance(keystore.toFile(), PASSWORD).getCertificate(alias).getPublicKey();
+    }
+}
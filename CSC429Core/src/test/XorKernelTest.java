@@ -0,0 +1,135 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * XorKernelTest checks that the long-lane XOR kernel gives exactly the bytes of the scalar reference loop,
+ * for every length around the lane and threshold boundaries, at unaligned offsets, in place, and over heap,
+ * direct, sliced and reversed-byte-order ByteBuffers.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+class XorKernelTest {
+
+    private static final int MAX_LENGTH = 80;
+    private static final int MAX_OFFSET = 9;
+
+    private final Random random = new Random(429);
+
+    // Arrays: every length up to a few lanes past the threshold, at every offset within a lane
+    @Test
+    void arraysMatchScalar() {
+        for (int len = 0; len <= MAX_LENGTH; len++) {
+            for (int off = 0; off < MAX_OFFSET; off++) {
+                byte[] src = randomBytes(len + 2 * MAX_OFFSET);
+                byte[] key = randomBytes(len + 2 * MAX_OFFSET);
+                byte[] expected = randomBytes(len + 2 * MAX_OFFSET);
+                byte[] actual = expected.clone();
+                int keyOff = MAX_OFFSET - 1 - off;
+                int dstOff = (off * 3) % MAX_OFFSET;
+                XorKernel.xorScalar(src, off, key, keyOff, expected, dstOff, len);
+                XorKernel.xor(src, off, key, keyOff, actual, dstOff, len);
+                assertArrayEquals(expected, actual, "length " + len + ", offset " + off);
+            }
+        }
+    }
+
+    // In place, as the engines use it, including the bytes around the range staying untouched
+    @Test
+    void inPlaceMatchesScalar() {
+        for (int len = 0; len <= MAX_LENGTH; len++) {
+            for (int off = 0; off < MAX_OFFSET; off++) {
+                byte[] data = randomBytes(len + 2 * MAX_OFFSET);
+                byte[] key = randomBytes(len + MAX_OFFSET);
+                byte[] expected = data.clone();
+                XorKernel.xorScalar(expected, off, key, off, expected, off, len);
+                XorKernel.xorInPlace(data, off, key, off, len);
+                assertArrayEquals(expected, data, "length " + len + ", offset " + off);
+            }
+        }
+    }
+
+    // Heap and direct buffers in either byte order, positioned at unaligned offsets, advance like the scalar loop
+    @Test
+    void buffersMatchScalar() {
+        for (boolean direct : new boolean[] {false, true}) {
+            for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                for (int len = 0; len <= MAX_LENGTH; len++) {
+                    for (int off = 0; off < MAX_OFFSET; off++) {
+                        byte[] src = randomBytes(len + MAX_OFFSET);
+                        byte[] key = randomBytes(len + MAX_OFFSET);
+                        byte[] expected = new byte[len + MAX_OFFSET];
+                        XorKernel.xorScalar(src, off, key, off, expected, off, len);
+
+                        ByteBuffer srcBuffer = buffer(src, direct, order).position(off);
+                        ByteBuffer keyBuffer = buffer(key, direct, order).position(off);
+                        ByteBuffer dstBuffer = buffer(new byte[len + MAX_OFFSET], direct, order).position(off);
+                        srcBuffer.limit(off + len);
+                        XorKernel.xor(srcBuffer, keyBuffer, dstBuffer);
+
+                        String where = (direct ? "direct " : "heap ") + order + ", length " + len + ", offset " + off;
+                        assertEquals(off + len, srcBuffer.position(), where);
+                        assertEquals(off + len, keyBuffer.position(), where);
+                        assertEquals(off + len, dstBuffer.position(), where);
+                        assertArrayEquals(expected, contents(dstBuffer), where);
+                    }
+                }
+            }
+        }
+    }
+
+    // Slices start part-way into their backing storage, which the lane accesses must take into account
+    @Test
+    void slicedBuffersMatchScalar() {
+        for (boolean direct : new boolean[] {false, true}) {
+            for (int start = 1; start < MAX_OFFSET; start++) {
+                int len = MAX_LENGTH - start;
+                byte[] src = randomBytes(MAX_LENGTH);
+                byte[] key = randomBytes(MAX_LENGTH);
+                byte[] expected = new byte[len];
+                XorKernel.xorScalar(src, start, key, start, expected, 0, len);
+
+                ByteBuffer srcSlice = buffer(src, direct, ByteOrder.BIG_ENDIAN).position(start).slice();
+                ByteBuffer keySlice = buffer(key, direct, ByteOrder.BIG_ENDIAN).position(start).slice();
+                ByteBuffer dst = direct ? ByteBuffer.allocateDirect(len) : ByteBuffer.allocate(len);
+                XorKernel.xor(srcSlice, keySlice, dst);
+                assertArrayEquals(expected, contents(dst), (direct ? "direct" : "heap") + " slice at " + start);
+            }
+        }
+    }
+
+    @Test
+    void shortKeyOrDestinationIsRefused() {
+        assertThrows(IllegalArgumentException.class,
+                () -> XorKernel.xor(ByteBuffer.allocate(32), ByteBuffer.allocate(31), ByteBuffer.allocate(32)));
+        assertThrows(IllegalArgumentException.class,
+                () -> XorKernel.xor(ByteBuffer.allocate(32), ByteBuffer.allocate(32), ByteBuffer.allocate(31)));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> XorKernel.xor(new byte[32], 1, new byte[32], 0, new byte[32], 0, 32));
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static ByteBuffer buffer(byte[] bytes, boolean direct, ByteOrder order) {
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        buffer.put(bytes).clear();
+        return buffer.order(order);
+    }
+
+    // Every byte of the buffer, whatever its position
+    private static byte[] contents(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.capacity()];
+        buffer.duplicate().clear().get(bytes);
+        return bytes;
+    }
+}
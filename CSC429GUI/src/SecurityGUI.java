@@ -1,11 +1,15 @@
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.function.Consumer;
 
 /**
  * SecurityGUI serves as the primary interface for the CSC 429 Computer Security Project.
@@ -23,12 +27,28 @@ public class SecurityGUI {
     private JTextArea ciphertextArea;
     private JLabel algorithmDescriptionLabel;
     private JComboBox<String> algorithmComboBox;
+    // When ticked, the first key field is a passphrase that KeyManager stretches into the cipher key
+    private JCheckBox passphraseCheckBox;
+    // Ciphers offered in algorithmComboBox; each is only instantiated once it is used
+    private final CipherRegistry cipherRegistry = CipherRegistry.load();
     private JPanel keyPanel;
     private int keyFieldCount = 0;
     private static final int MAX_KEY_FIELDS = 2;
+    // What each key field holds: the first is the cipher key, the second a separate key for HMAC and signatures
+    private static final String[] KEY_FIELD_LABELS = {"Cipher key:", "HMAC key / keystore password:"};
     // GUI components for file operations
     private JButton openFileButton;
     private JButton saveFileButton;
+    // File the plaintext was opened from, so it can be streamed from disk again while unedited
+    private Path openedFile;
+    // Keystore chosen for digital signatures; its keys are loaded once and cached by SignatureService
+    private Path keystoreFile;
+    // Progress of the operation running in the background, if any; only one runs at a time
+    private JProgressBar progressBar;
+    private JLabel progressLabel;
+    private JButton cancelButton;
+    private Timer progressTimer;
+    private OperationWorker<?> currentWorker;
 
     // Constructor initializes the GUI components and builds the frame
     public SecurityGUI() {
@@ -50,11 +70,26 @@ public class SecurityGUI {
     private void initComponents() {
         plaintextArea = new JTextArea(10, 60);
         ciphertextArea = new JTextArea(10, 60);
+        plaintextArea.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                openedFile = null;
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                openedFile = null;
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
         
-        // TODO: Replace with actual algorithm description
-        algorithmDescriptionLabel = new JLabel("Place your algorithm description and key requirement here.");
-        // TODO: Replace with actual algorithm name
-        algorithmComboBox = new JComboBox<>(new String[]{"Replace With Your Algorithm Title Name"}); 
+        algorithmComboBox = new JComboBox<>(cipherRegistry.names().toArray(new String[0]));
+        algorithmDescriptionLabel = new JLabel();
+        algorithmComboBox.addActionListener(e -> describeSelectedCipher());
+        describeSelectedCipher();
         
         keyPanel = new JPanel();
         openFileButton = new JButton("Open File");
@@ -65,6 +100,21 @@ public class SecurityGUI {
         
         keyPanel = new JPanel();
         keyPanel.setLayout(new BoxLayout(keyPanel, BoxLayout.Y_AXIS));
+
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressLabel = new JLabel("Ready");
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> {
+            if (currentWorker != null) {
+                currentWorker.cancel(true);
+                cancelButton.setEnabled(false);
+                updateProgress();
+            }
+        });
+        // Refresh the bar and throughput a few times per second instead of on every chunk
+        progressTimer = new Timer(250, e -> updateProgress());
     }
 
     // Set up the main frame properties and add the primary panels
@@ -76,6 +126,7 @@ public class SecurityGUI {
         frame.add(createInputPanel());
         frame.add(createAlgorithmPanel());
         frame.add(createActionPanel());
+        frame.add(createProgressPanel());
 
         frame.pack();
         frame.setMinimumSize(new Dimension(950, 600));
@@ -83,6 +134,13 @@ public class SecurityGUI {
         frame.setVisible(true);
     }
 
+    // Show the description and key requirement of the cipher selected in the algorithm box
+    private void describeSelectedCipher() {
+        String name = (String) algorithmComboBox.getSelectedItem();
+        algorithmDescriptionLabel.setText(name == null ? "No ciphers are registered in META-INF/services/CipherProvider."
+                : cipherRegistry.description(name));
+    }
+
     // Set up the input panel containing plaintext and ciphertext fields
     private JPanel createInputPanel() {
         JPanel panel = new JPanel(new FlowLayout());
@@ -106,6 +164,8 @@ public class SecurityGUI {
         JButton addKeyButton = new JButton("+");
         addKeyButton.addActionListener(e -> addKeyField());
         upperPanel.add(addKeyButton);
+        passphraseCheckBox = new JCheckBox("Passphrase");
+        upperPanel.add(passphraseCheckBox);
 
         // Adding the upper panel to the main panel with some space
         panel.add(upperPanel);
@@ -120,33 +180,115 @@ public class SecurityGUI {
 
     
     
-    //TODO: implement your algorithm function here:
-    
-    
-    
+    // Set up the progress panel showing the running operation, its throughput and a cancel button
+    private JPanel createProgressPanel() {
+        JPanel panel = new JPanel(new FlowLayout());
+        panel.add(progressBar);
+        panel.add(progressLabel);
+        panel.add(cancelButton);
+        return panel;
+    }
+
+    // Run a job off the Event Dispatch Thread with progress and cancellation; callbacks run back on the EDT
+    private <T> void runInBackground(String name, long totalBytes, OperationWorker.Job<T> job, Consumer<T> onSuccess,
+                                     Consumer<Throwable> onFailure) {
+        if (currentWorker != null) {
+            showError("\"" + currentWorker.name() + "\" is still running. Wait for it to finish or cancel it first.");
+            return;
+        }
+        OperationWorker<T> worker = new OperationWorker<>(name, totalBytes, job, onSuccess, onFailure, this::operationFinished);
+        currentWorker = worker;
+        progressBar.setIndeterminate(totalBytes <= 0);
+        progressBar.setValue(0);
+        cancelButton.setEnabled(true);
+        updateProgress();
+        progressTimer.start();
+        worker.execute();
+    }
+
+    // Show how far the running operation has come and how fast it is going
+    private void updateProgress() {
+        OperationWorker<?> worker = currentWorker;
+        if (worker == null) {
+            return;
+        }
+        if (!progressBar.isIndeterminate()) {
+            progressBar.setValue(worker.getProgress());
+        }
+        if (worker.isStopping()) {
+            progressLabel.setText("Cancelling " + worker.name() + "...");
+            return;
+        }
+        progressLabel.setText(worker.name() + String.format(": %.1f MB at %.1f MB/s",
+                worker.processedBytes() / (1024.0 * 1024), worker.throughput() / (1024 * 1024)));
+    }
+
+    // Called on the EDT once the running operation has succeeded, failed or been cancelled and its job has returned
+    private void operationFinished() {
+        OperationWorker<?> worker = currentWorker;
+        updateProgress();
+        progressTimer.stop();
+        progressBar.setIndeterminate(false);
+        cancelButton.setEnabled(false);
+        progressLabel.setText(worker.isCancelled() ? worker.name() + " cancelled" : "Ready");
+        progressBar.setValue(worker.isCancelled() ? 0 : 100);
+        currentWorker = null;
+    }
+
+    // Encrypt the plaintext into hex ciphertext, or decrypt the hex ciphertext, with the cipher selected in the
+    // algorithm box and the key in the first key field; the cipher runs in the background
+    private void cipherAction(boolean encrypt) {
+        String[] keys = getKeysFromFields();
+        String algorithm = (String) algorithmComboBox.getSelectedItem();
+        if (keys.length == 0 || keys[0].isEmpty() || algorithm == null) {
+            showError("Select a cipher and provide its key.");
+            return;
+        }
+        // a passphrase is stretched by KeyManager, which keeps the derived key so the next operation is instant
+        CipherKey key;
+        byte[] input;
+        try {
+            key = passphraseCheckBox.isSelected()
+                    ? CipherKey.passphrase(keys[0].toCharArray())
+                    : cipherRegistry.get(algorithm).keyFromText(keys[0]);
+            input = encrypt
+                    ? plaintextArea.getText().getBytes(StandardCharsets.UTF_8)
+                    : DisplayCodec.HEX.decode(ciphertextArea.getText());
+        } catch (IllegalArgumentException ex) {
+            showError((encrypt ? "Error encrypting: " : "Error decrypting: ") + ex.getMessage());
+            return;
+        }
+        runInBackground(encrypt ? "Encrypt" : "Decrypt", input.length, progress -> {
+            CipherProvider cipher = cipherRegistry.get(algorithm);
+            cipher.checkKey(key, input.length);
+            return encrypt ? cipher.encrypt(input, key) : cipher.decrypt(input, key);
+        }, output -> {
+            if (encrypt) {
+                ciphertextArea.setText(DisplayCodec.HEX.encode(output));
+            } else {
+                plaintextArea.setText(new String(output, StandardCharsets.UTF_8));
+            }
+        }, ex -> showError((encrypt ? "Error encrypting: " : "Error decrypting: ") + ex.getMessage()));
+    }
+
     // Set up the action panel containing primary application controls
     private JPanel createActionPanel() {
         JPanel panel = new JPanel(new FlowLayout());
 
         JButton encryptButton = new JButton("Encrypt");
-        // TODO: Replace placeholder action listener with actual encryption function
-        encryptButton.addActionListener(e -> ciphertextArea.setText("Encrypted text would be here.")); // Placeholder function
+        encryptButton.addActionListener(e -> cipherAction(true));
 
         JButton decryptButton = new JButton("Decrypt");
-        // TODO: Replace placeholder action listener with actual decryption function
-        decryptButton.addActionListener(e -> plaintextArea.setText("Decrypted text would be here.")); // Placeholder function
+        decryptButton.addActionListener(e -> cipherAction(false));
 
         JButton hashButton = new JButton("Hash");
-        // TODO: Replace placeholder action listener with actual hashing function
-        hashButton.addActionListener(e -> ciphertextArea.setText("Hashed text would be here.")); // Placeholder function
+        hashButton.addActionListener(e -> hashAction());
 
         JButton hmacButton = new JButton("HMAC");
-        // TODO: Replace placeholder action listener with actual HMAC function
-        hmacButton.addActionListener(e -> ciphertextArea.setText("HMAC result would be here.")); // Placeholder function
+        hmacButton.addActionListener(e -> hmacAction());
 
         JButton signatureButton = new JButton("Digital Signature");
-        // TODO: Replace placeholder action listener with actual digital signature function
-        signatureButton.addActionListener(e -> ciphertextArea.setText("Digital signature would be here.")); // Placeholder function
+        signatureButton.addActionListener(e -> signatureAction());
 
         panel.add(encryptButton);
         panel.add(decryptButton);
@@ -163,9 +305,12 @@ public class SecurityGUI {
     // Adds a new key input field to the keyPanel
     private void addKeyField() {
         if (keyFieldCount < MAX_KEY_FIELDS) {
+            JLabel label = new JLabel(KEY_FIELD_LABELS[keyFieldCount]);
+            label.setAlignmentX(Component.CENTER_ALIGNMENT);
             JTextField newKeyField = new JTextField();
             newKeyField.setMaximumSize(new Dimension(Integer.MAX_VALUE, newKeyField.getPreferredSize().height));
             newKeyField.setAlignmentX(Component.CENTER_ALIGNMENT);
+            keyPanel.add(label);
             keyPanel.add(newKeyField);
             keyPanel.revalidate();
             keyPanel.repaint();
@@ -175,6 +320,71 @@ public class SecurityGUI {
         }
     }
 
+    // Hash the opened file straight from disk (or the plaintext text) with every default algorithm in one pass
+    private void hashAction() {
+        Path file = openedFile;
+        byte[] plaintext = file == null ? plaintextArea.getText().getBytes(StandardCharsets.UTF_8) : null;
+        runInBackground("Hash", file != null ? file.toFile().length() : plaintext.length,
+                progress -> DigestEngine.describe(file != null
+                        ? DigestEngine.digest(file, DigestEngine.DEFAULT_ALGORITHMS, progress)
+                        : DigestEngine.digest(plaintext, DigestEngine.DEFAULT_ALGORITHMS)),
+                ciphertextArea::setText, ex -> showError("Error computing hash: " + ex.getMessage()));
+    }
+
+    // HMAC-SHA256 and HMAC-SHA512 of the opened file (or the plaintext text), keyed with the second key field
+    private void hmacAction() {
+        String secondKey = secondKeyFromFields("the HMAC key");
+        if (secondKey == null) {
+            return;
+        }
+        byte[] key = secondKey.getBytes(StandardCharsets.UTF_8);
+        String[] algorithms = {HmacService.HMAC_SHA256, HmacService.HMAC_SHA512};
+        Path file = openedFile;
+        byte[] plaintext = file == null ? plaintextArea.getText().getBytes(StandardCharsets.UTF_8) : null;
+        long length = file != null ? file.toFile().length() : plaintext.length;
+        runInBackground("HMAC", length * algorithms.length, progress -> {
+            StringBuilder tags = new StringBuilder();
+            for (String algorithm : algorithms) {
+                byte[] tag = file != null
+                        ? HmacService.tag(algorithm, key, file, progress)
+                        : HmacService.tag(algorithm, key, plaintext);
+                tags.append(tags.length() > 0 ? "\n" : "").append(algorithm).append(": ").append(DigestEngine.toHex(tag));
+            }
+            return tags.toString();
+        }, ciphertextArea::setText, ex -> showError("Error computing HMAC: " + ex.getMessage()));
+    }
+
+    // Sign the opened file (or the plaintext text) with the first private key of a keystore; the second key field
+    // holds its password
+    private void signatureAction() {
+        String secondKey = secondKeyFromFields("the keystore password");
+        if (secondKey == null) {
+            return;
+        }
+        if (keystoreFile == null) {
+            File chosen = chooseFile("Select the keystore (PKCS12/JKS) holding your signing key", false);
+            if (chosen == null) {
+                return;
+            }
+            keystoreFile = chosen.toPath();
+        }
+        char[] password = secondKey.toCharArray();
+        Path keystore = keystoreFile;
+        Path file = openedFile;
+        byte[] plaintext = file == null ? plaintextArea.getText().getBytes(StandardCharsets.UTF_8) : null;
+        runInBackground("Digital Signature", file != null ? file.toFile().length() : plaintext.length, progress -> {
+            String alias = SignatureService.defaultAlias(keystore, password);
+            byte[] signature = file != null
+                    ? SignatureService.sign(keystore, password, alias, file, progress)
+                    : SignatureService.sign(keystore, password, alias, plaintext);
+            return SignatureService.scheme(keystore, password, alias) + " signature (" + alias + "): "
+                    + DigestEngine.toHex(signature);
+        }, ciphertextArea::setText, ex -> {
+            keystoreFile = null;
+            showError("Error creating digital signature: " + ex.getMessage());
+        });
+    }
+
     // Action method for opening files
     private void openFileAction(ActionEvent e) {
         JFileChooser fileChooser = new JFileChooser();
@@ -184,6 +394,7 @@ public class SecurityGUI {
             try {
                 String content = new String(Files.readAllBytes(Paths.get(file.getPath())));
                 plaintextArea.setText(content);
+                openedFile = file.toPath();
             } catch (Exception ex) {
                 showError("Error reading file: " + ex.getMessage());
             }
@@ -200,14 +411,24 @@ public class SecurityGUI {
             if (!fileToSave.getName().contains(".")) {
                 fileToSave = new File(fileToSave.toString() + ".txt");
             }
-            try (FileWriter fileWriter = new FileWriter(fileToSave)) {
-                fileWriter.write(ciphertextArea.getText());
-            } catch (IOException ex) {
+            // written as UTF-8 to a temporary file that replaces the target only once it is complete
+            try (AtomicFile out = AtomicFile.create(fileToSave.toPath())) {
+                out.write(ciphertextArea.getText());
+                out.commit();
+            } catch (IOException | IllegalArgumentException ex) {
                 showError("Error saving file: " + ex.getMessage());
             }
         }
     }
     
+    // Show an open or save dialog with the given title, returning null if the user cancels
+    private File chooseFile(String title, boolean save) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle(title);
+        int returnVal = save ? fileChooser.showSaveDialog(null) : fileChooser.showOpenDialog(null);
+        return returnVal == JFileChooser.APPROVE_OPTION ? fileChooser.getSelectedFile() : null;
+    }
+    
     // Retrieve keys from text fields as an array of Strings
     private String[] getKeysFromFields() {
         java.util.List<String> keysList = new java.util.ArrayList<>();
@@ -221,6 +442,21 @@ public class SecurityGUI {
         return keys;
     }
 
+    // The text of the second key field, which holds the HMAC key or keystore password, or null after telling the user.
+    // It is never the cipher key: with only the first field present the action is refused instead
+    private String secondKeyFromFields(String purpose) {
+        String[] keys = getKeysFromFields();
+        if (keys.length < 2) {
+            showError("Add a second key field with '+' for " + purpose + "; the first key field is the cipher key.");
+            return null;
+        }
+        if (keys[1].isEmpty()) {
+            showError("Enter " + purpose + " in the second key field.");
+            return null;
+        }
+        return keys[1];
+    }
+
     // Utility function to display error messages
     private void showError(String message) {
         JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.ERROR_MESSAGE);
@@ -0,0 +1,400 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * BatchPipeline encrypts or decrypts a whole directory tree with one pad file.
+ * Reads and writes run on I/O threads (virtual threads when the JDK provides them), the XOR runs on a
+ * fixed pool of platform threads, and a fixed pool of chunk buffers provides backpressure so memory
+ * stays bounded no matter how many files are queued.
+ *
+ * Each file is given its own range of the pad, recorded in an index file written next to the
+ * encrypted tree so the same ranges can be used again for decryption. The whole range is reserved in
+ * the pad's PadLedger before anything is encrypted, so a pad range is never used twice.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class BatchPipeline {
+
+    // Name of the pad index written at the root of every encrypted tree
+    public static final String INDEX_FILE = "otp-index.tsv";
+
+    static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+    static final int DEFAULT_MAX_IN_FLIGHT = 64;
+    static final int MAX_OPEN_FILES = 64;
+
+    // Files still waiting for one of the MAX_OPEN_FILES slots, and chunk buffers taken from the pool
+    private static final Metrics.Queue WAITING_FILES = Metrics.queue("batch.files");
+    private static final Metrics.Queue CHUNKS_IN_FLIGHT = Metrics.queue("batch.chunks");
+
+    private final int computeThreads;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+
+    public BatchPipeline(int computeThreads, int chunkSize, int maxChunksInFlight) {
+        if (computeThreads < 1 || chunkSize < 1 || maxChunksInFlight < 1) {
+            throw new IllegalArgumentException("Threads, chunk size and chunks in flight must all be positive.");
+        }
+        this.computeThreads = computeThreads;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = maxChunksInFlight;
+    }
+
+    public BatchPipeline() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    // Encrypt every regular file below inputRoot into the same layout below outputRoot, using the next unused pad range
+    public Report encryptTree(Path inputRoot, Path pad, Path outputRoot) throws IOException {
+        List<Entry> entries = listTree(inputRoot);
+        long padOffset = PadLedger.forPad(pad).reserveNext(totalLength(entries));
+        return encryptEntries(inputRoot, pad, padOffset, outputRoot, entries);
+    }
+
+    // Encrypt every regular file below inputRoot, using the pad range starting at padOffset, which must be unused
+    public Report encryptTree(Path inputRoot, Path pad, long padOffset, Path outputRoot) throws IOException {
+        List<Entry> entries = listTree(inputRoot);
+        long total = totalLength(entries);
+        OTPFileEngine.checkPadLength(Files.size(pad), padOffset, total);
+        PadLedger.forPad(pad).reserve(padOffset, total);
+        return encryptEntries(inputRoot, pad, padOffset, outputRoot, entries);
+    }
+
+    private Report encryptEntries(Path inputRoot, Path pad, long padOffset, Path outputRoot, List<Entry> relative)
+            throws IOException {
+        List<Entry> entries = new ArrayList<>(relative.size());
+        long offset = padOffset;
+        for (Entry entry : relative) {
+            entries.add(new Entry(entry.relativePath, offset, entry.length));
+            offset += entry.length;
+        }
+        Files.createDirectories(outputRoot);
+        writeIndex(outputRoot.resolve(INDEX_FILE), entries);
+        return run("encrypt-tree.OTP", inputRoot, pad, outputRoot, entries);
+    }
+
+    // Every regular file below root in sorted order, with pad offsets relative to the start of the tree's range
+    private static List<Entry> listTree(Path root) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long offset = 0;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                String relative = root.relativize(file).toString();
+                if (relative.equals(INDEX_FILE)) {
+                    continue;
+                }
+                long length = Files.size(file);
+                entries.add(new Entry(relative, offset, length));
+                offset += length;
+            }
+        }
+        return entries;
+    }
+
+    private static long totalLength(List<Entry> entries) {
+        return entries.stream().mapToLong(entry -> entry.length).sum();
+    }
+
+    // Decrypt a tree produced by encryptTree, using the pad ranges from its index file
+    public Report decryptTree(Path inputRoot, Path pad, Path outputRoot) throws IOException {
+        List<Entry> entries = readIndex(inputRoot.resolve(INDEX_FILE));
+        long padLength = Files.size(pad);
+        for (Entry entry : entries) {
+            OTPFileEngine.checkPadLength(padLength, entry.padOffset, entry.length);
+            resolveInside(inputRoot, entry.relativePath);
+            resolveInside(outputRoot, entry.relativePath);
+        }
+        Files.createDirectories(outputRoot);
+        return run("decrypt-tree.OTP", inputRoot, pad, outputRoot, entries);
+    }
+
+    // Process every entry, timing each file as the named operation
+    private Report run(String operation, Path inputRoot, Path pad, Path outputRoot, List<Entry> entries) throws IOException {
+        BlockingQueue<Chunk> bufferPool = new ArrayBlockingQueue<>(maxChunksInFlight);
+        for (int i = 0; i < maxChunksInFlight; i++) {
+            bufferPool.add(new Chunk(chunkSize));
+        }
+        Semaphore openFiles = new Semaphore(MAX_OPEN_FILES);
+        ExecutorService io = newIoExecutor();
+        ExecutorService compute = Executors.newFixedThreadPool(computeThreads, daemonThreads("otp-compute-"));
+        long start = System.nanoTime();
+        List<FileResult> results = Collections.synchronizedList(new ArrayList<>());
+        try (FileChannel padChannel = FileChannel.open(pad, StandardOpenOption.READ)) {
+            List<CompletableFuture<Void>> jobs = new ArrayList<>();
+            int waiting = entries.size();
+            for (int i = 0; i < waiting; i++) {
+                WAITING_FILES.enter();
+            }
+            try {
+                // take the file's slot before submitting it, so at most MAX_OPEN_FILES I/O threads ever exist
+                for (Entry entry : entries) {
+                    openFiles.acquire();
+                    waiting--;
+                    WAITING_FILES.leave();
+                    jobs.add(CompletableFuture.runAsync(() -> results.add(processFile(operation, inputRoot, outputRoot,
+                            pad, padChannel, entry, bufferPool, openFiles, io, compute)), io));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted after starting " + jobs.size() + " of " + entries.size()
+                        + " files");
+            } finally {
+                for (; waiting > 0; waiting--) {
+                    WAITING_FILES.leave();
+                }
+            }
+            CompletableFuture.allOf(jobs.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            io.shutdownNow();
+            compute.shutdownNow();
+        }
+        return new Report(results, System.nanoTime() - start);
+    }
+
+    // Read every chunk of one file, hand it to the compute pool and then back to I/O for a positional write.
+    // The caller has already taken one of the openFiles permits, which is released here. The output is written to a
+    // temporary file that only replaces the target once complete, so a failed file leaves the target as it was.
+    private FileResult processFile(String operation, Path inputRoot, Path outputRoot, Path padFile, FileChannel pad,
+                                   Entry entry, BlockingQueue<Chunk> bufferPool, Semaphore openFiles,
+                                   ExecutorService io, ExecutorService compute) {
+        long start = System.nanoTime();
+        try (Metrics.Span span = Metrics.start(operation)) {
+            try {
+                Path target = resolveInside(outputRoot, entry.relativePath);
+                Path source = resolveInside(inputRoot, entry.relativePath);
+                Files.createDirectories(target.getParent());
+                try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                     AtomicFile output = AtomicFile.createOutput(target, source, padFile)) {
+                    FileChannel out = output.channel();
+                    if (in.size() != entry.length) {
+                        throw new IOException("File changed size since it was indexed: " + entry.relativePath);
+                    }
+                    List<CompletableFuture<Void>> pending = new ArrayList<>();
+                    for (long position = 0; position < entry.length; position += chunkSize) {
+                        int length = (int) Math.min(chunkSize, entry.length - position);
+                        Chunk chunk = bufferPool.take();
+                        CHUNKS_IN_FLIGHT.enter();
+                        try {
+                            chunk.read(in, position, pad, entry.padOffset + position, length);
+                        } catch (IOException e) {
+                            CHUNKS_IN_FLIGHT.leave();
+                            bufferPool.add(chunk);
+                            // let the chunks already submitted finish before their channel is closed
+                            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                                    .exceptionally(error -> null).join();
+                            throw e;
+                        }
+                        long outputPosition = position;
+                        pending.add(CompletableFuture
+                                .runAsync(chunk::xor, compute)
+                                .thenRunAsync(() -> chunk.write(out, outputPosition), io)
+                                .whenComplete((ignored, error) -> {
+                                    CHUNKS_IN_FLIGHT.leave();
+                                    bufferPool.add(chunk);
+                                }));
+                    }
+                    CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+                    output.commit();
+                }
+            } finally {
+                openFiles.release();
+            }
+            span.completed(entry.length);
+            return new FileResult(entry.relativePath, entry.length, System.nanoTime() - start, null);
+        } catch (IOException | RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            return new FileResult(entry.relativePath, entry.length, System.nanoTime() - start, cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new FileResult(entry.relativePath, entry.length, System.nanoTime() - start, "interrupted");
+        }
+    }
+
+    // Resolve a path from the pad index below root, refusing absolute paths and any that leave root through ..
+    static Path resolveInside(Path root, String relativePath) throws IOException {
+        Path relative = root.getFileSystem().getPath(relativePath);
+        Path base = root.toAbsolutePath().normalize();
+        Path resolved = base.resolve(relative).normalize();
+        if (relative.getRoot() != null || resolved.equals(base) || !resolved.startsWith(base)) {
+            throw new IOException("Pad index entry is not a path inside the tree: " + relativePath);
+        }
+        return resolved;
+    }
+
+    private static void writeIndex(Path index, List<Entry> entries) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Entry entry : entries) {
+            lines.add(entry.padOffset + "\t" + entry.length + "\t" + entry.relativePath);
+        }
+        Files.write(index, lines, StandardCharsets.UTF_8);
+    }
+
+    private static List<Entry> readIndex(Path index) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split("\t", 3);
+            if (fields.length != 3) {
+                throw new IOException("Malformed pad index line: " + line);
+            }
+            entries.add(new Entry(fields[2], Long.parseLong(fields[0]), Long.parseLong(fields[1])));
+        }
+        return entries;
+    }
+
+    // Virtual threads when running on a JDK that has them, otherwise a cached pool of daemon threads; run() takes a
+    // file's slot before submitting it, so the cached pool never grows past MAX_OPEN_FILES plus the chunk writes
+    static ExecutorService newIoExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemonThreads("otp-io-"));
+        }
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // One file of the tree and the pad range assigned to it
+    private static final class Entry {
+        final String relativePath;
+        final long padOffset;
+        final long length;
+
+        Entry(String relativePath, long padOffset, long length) {
+            this.relativePath = relativePath;
+            this.padOffset = padOffset;
+            this.length = length;
+        }
+    }
+
+    // Reusable pair of direct buffers for one chunk of data and the matching pad bytes
+    private static final class Chunk {
+        private final ByteBuffer data;
+        private final ByteBuffer pad;
+
+        Chunk(int size) {
+            data = ByteBuffer.allocateDirect(size);
+            pad = ByteBuffer.allocateDirect(size);
+        }
+
+        void read(FileChannel in, long position, FileChannel key, long padPosition, int length) throws IOException {
+            readFully(in, data, position, length);
+            readFully(key, pad, padPosition, length);
+        }
+
+        void xor() {
+            XorKernel.xor(data.duplicate(), pad, data);
+            data.flip();
+        }
+
+        void write(FileChannel out, long position) {
+            try {
+                while (data.hasRemaining()) {
+                    position += out.write(data, position);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static void readFully(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+            buffer.clear().limit(length);
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    throw new IOException("Unexpected end of file while reading " + length + " bytes");
+                }
+            }
+            buffer.flip();
+        }
+    }
+
+    // Outcome of one file; error is null when it succeeded
+    public static final class FileResult {
+        public final String path;
+        public final long bytes;
+        public final long nanos;
+        public final String error;
+
+        FileResult(String path, long bytes, long nanos, String error) {
+            this.path = path;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            if (error != null) {
+                return path + ": FAILED (" + error + ")";
+            }
+            return String.format("%s: %d bytes in %.3f s (%.1f MB/s)", path, bytes, nanos / 1e9, throughput(bytes, nanos));
+        }
+    }
+
+    // Per-file and total throughput of a pipeline run
+    public static final class Report {
+        public final List<FileResult> files;
+        public final long nanos;
+
+        Report(List<FileResult> files, long nanos) {
+            List<FileResult> sorted = new ArrayList<>(files);
+            sorted.sort((a, b) -> a.path.compareTo(b.path));
+            this.files = Collections.unmodifiableList(sorted);
+            this.nanos = nanos;
+        }
+
+        public long totalBytes() {
+            return files.stream().filter(f -> f.error == null).mapToLong(f -> f.bytes).sum();
+        }
+
+        public long failures() {
+            return files.stream().filter(f -> f.error != null).count();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            for (FileResult file : files) {
+                text.append(file).append(System.lineSeparator());
+            }
+            text.append(String.format("Total: %d files (%d failed), %d bytes in %.3f s (%.1f MB/s)",
+                    files.size(), failures(), totalBytes(), nanos / 1e9, throughput(totalBytes(), nanos)));
+            return text.toString();
+        }
+    }
+
+    private static double throughput(long bytes, long nanos) {
+        return bytes / (Math.max(nanos, 1) / 1e9) / 1e6;
+    }
+}
@@ -0,0 +1,302 @@
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollBar;
+
+/**
+ * ContentViewer shows content of any size, from a memory-mapped file or a byte array, as a hex dump or as text.
+ * Nothing is decoded up front: the viewer only knows the content's length, and every repaint reads and
+ * formats just the rows that fit in the window. A gigabyte file therefore opens instantly, and only the
+ * pages of the file that are actually looked at are ever touched.
+ *
+ * Text mode shows a fixed number of bytes per row decoded as UTF-8, with control characters drawn as dots,
+ * so it needs no scan for line breaks; a character split across two rows shows as a replacement character.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class ContentViewer extends JPanel {
+
+    private static final long serialVersionUID = 1L;
+
+    // Size of each mapped window of a file; a few recently used windows stay mapped
+    static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final int MAX_WINDOWS = 4;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Rows rows = new Rows();
+    private final JScrollBar scrollBar = new JScrollBar(JScrollBar.VERTICAL);
+    private final JComboBox<Mode> modeComboBox = new JComboBox<>(Mode.values());
+    private final JLabel sizeLabel = new JLabel();
+    private Content content = new ArrayContent(new byte[0]);
+    // Rows per scroll bar unit, above 1 only for content with more rows than a scroll bar can count
+    private long rowsPerUnit = 1;
+
+    public ContentViewer(Mode mode) {
+        super(new BorderLayout());
+        modeComboBox.setSelectedItem(mode);
+        modeComboBox.addActionListener(e -> {
+            scrollBar.setValue(0);
+            updateScrollBar();
+        });
+        scrollBar.addAdjustmentListener(e -> rows.repaint());
+        rows.addMouseWheelListener(e -> scrollBar.setValue(scrollBar.getValue() + e.getWheelRotation() * 3));
+        rows.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                updateScrollBar();
+            }
+        });
+
+        JPanel header = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        header.add(modeComboBox);
+        header.add(sizeLabel);
+        add(header, BorderLayout.NORTH);
+        add(rows, BorderLayout.CENTER);
+        add(scrollBar, BorderLayout.EAST);
+    }
+
+    // Show a file by mapping it window by window as the user scrolls through it
+    public void show(Path file) throws IOException {
+        replace(new MappedContent(file));
+    }
+
+    // Show bytes that are already in memory
+    public void show(byte[] data) {
+        try {
+            replace(new ArrayContent(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Drop the current content, unmapping a shown file once nothing else refers to it
+    public void clear() {
+        show(new byte[0]);
+    }
+
+    private void replace(Content next) throws IOException {
+        Content previous = content;
+        content = next;
+        sizeLabel.setText(String.format("%,d bytes", next.length()));
+        scrollBar.setValue(0);
+        updateScrollBar();
+        previous.close();
+    }
+
+    private Mode mode() {
+        return (Mode) modeComboBox.getSelectedItem();
+    }
+
+    private long totalRows() {
+        return (content.length() + mode().bytesPerRow - 1) / mode().bytesPerRow;
+    }
+
+    // Resize the scroll bar to the content and the number of rows that fit in the window
+    private void updateScrollBar() {
+        long total = totalRows();
+        rowsPerUnit = Math.max(1, (total + Integer.MAX_VALUE / 2 - 1) / (Integer.MAX_VALUE / 2));
+        int visible = Math.max(1, rows.visibleRows());
+        int units = (int) ((total + rowsPerUnit - 1) / rowsPerUnit);
+        scrollBar.setValues(Math.min(scrollBar.getValue(), Math.max(0, units - 1)), visible, 0, Math.max(units, visible));
+        scrollBar.setBlockIncrement(visible);
+        rows.repaint();
+    }
+
+    // How the bytes of each row are shown
+    public enum Mode {
+        HEX("Hex", 16), TEXT("Text", 64);
+
+        private final String label;
+        final int bytesPerRow;
+
+        Mode(String label, int bytesPerRow) {
+            this.label = label;
+            this.bytesPerRow = bytesPerRow;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    // Paints only the visible rows, reading their bytes from the content on demand
+    private final class Rows extends JComponent {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] row = new byte[Mode.TEXT.bytesPerRow];
+
+        Rows() {
+            setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            setPreferredSize(new Dimension(660, 170));
+            setOpaque(true);
+            setBackground(Color.WHITE);
+        }
+
+        int visibleRows() {
+            return getHeight() / getFontMetrics(getFont()).getHeight();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+            g.setColor(getForeground());
+            FontMetrics metrics = g.getFontMetrics(getFont());
+            Mode mode = mode();
+            long length = content.length();
+            long firstRow = scrollBar.getValue() * rowsPerUnit;
+            int y = metrics.getAscent();
+            try {
+                for (long index = firstRow; index < totalRows() && y - metrics.getAscent() < getHeight(); index++) {
+                    long position = index * mode.bytesPerRow;
+                    int count = (int) Math.min(mode.bytesPerRow, length - position);
+                    content.read(position, row, count);
+                    g.drawString(mode == Mode.HEX ? hexRow(position, count) : textRow(count), 2, y);
+                    y += metrics.getHeight();
+                }
+            } catch (IOException | UncheckedIOException e) {
+                g.drawString("Cannot read content: " + e.getMessage(), 2, y);
+            }
+        }
+
+        // "offset  xx xx ... xx  ascii" like a classic hex dump
+        private String hexRow(long position, int count) {
+            StringBuilder line = new StringBuilder(80);
+            for (int shift = 44; shift >= 0; shift -= 4) {
+                line.append(HEX_DIGITS[(int) (position >>> shift) & 0x0F]);
+            }
+            line.append("  ");
+            for (int i = 0; i < Mode.HEX.bytesPerRow; i++) {
+                if (i < count) {
+                    line.append(HEX_DIGITS[(row[i] >> 4) & 0x0F]).append(HEX_DIGITS[row[i] & 0x0F]).append(' ');
+                } else {
+                    line.append("   ");
+                }
+                if (i == 7) {
+                    line.append(' ');
+                }
+            }
+            line.append(' ');
+            for (int i = 0; i < count; i++) {
+                line.append(row[i] >= 0x20 && row[i] < 0x7F ? (char) row[i] : '.');
+            }
+            return line.toString();
+        }
+
+        private String textRow(int count) {
+            char[] text = new String(row, 0, count, StandardCharsets.UTF_8).toCharArray();
+            for (int i = 0; i < text.length; i++) {
+                if (Character.isISOControl(text[i])) {
+                    text[i] = '.';
+                }
+            }
+            return new String(text);
+        }
+    }
+
+    // Random-access bytes behind the viewer
+    private interface Content {
+        long length();
+
+        void read(long position, byte[] into, int length) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private static final class ArrayContent implements Content {
+        private final byte[] data;
+
+        ArrayContent(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public long length() {
+            return data.length;
+        }
+
+        @Override
+        public void read(long position, byte[] into, int length) {
+            System.arraycopy(data, (int) position, into, 0, length);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // A file mapped lazily in fixed windows, keeping the least recently used windows mapped
+    private static final class MappedContent implements Content {
+        private final FileChannel channel;
+        private final long length;
+        private final Map<Long, MappedByteBuffer> windows = new LinkedHashMap<Long, MappedByteBuffer>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest) {
+                return size() > MAX_WINDOWS;
+            }
+        };
+
+        MappedContent(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            length = channel.size();
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public void read(long position, byte[] into, int length) throws IOException {
+            int done = 0;
+            while (done < length) {
+                long window = (position + done) / WINDOW_SIZE;
+                MappedByteBuffer buffer = window(window);
+                int offset = (int) (position + done - window * WINDOW_SIZE);
+                int count = Math.min(length - done, buffer.limit() - offset);
+                buffer.get(offset, into, done, count);
+                done += count;
+            }
+        }
+
+        private MappedByteBuffer window(long window) throws IOException {
+            MappedByteBuffer buffer = windows.get(window);
+            if (buffer == null) {
+                long start = window * WINDOW_SIZE;
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, length - start));
+                windows.put(window, buffer);
+            }
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            windows.clear();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,705 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * EncryptedContainer is a self-describing file format for encrypted data that can be read at random.
+ * The header names the algorithm and, for the One-Time Pad, the pad and the pad offset that were used,
+ * so decryption needs nothing but the key. The plaintext is cut into fixed-size chunks that are encrypted
+ * on their own and stored back to back; a chunk table at the end of the file holds the location and the
+ * integrity tag of every chunk. Any byte range is decrypted by reading only its table entries and chunks,
+ * and no chunk is released before its tag has been verified.
+ *
+ * Layout:
+ *   header = "C4CF" | version (1) | algorithm (1) | kdf (1) | reserved (1) | chunkSize (4) | noncePrefix (8)
+ *            [| padOffset (8) | padId (16)   only for algorithm 0, the One-Time Pad]
+ *            [| salt (16) | iterations (4)   only for kdf 1]
+ *   chunks = the ciphertext of every chunk (at least one, the last may be short), as long as the plaintext
+ *   table  = per chunk: offset (8) | length (4) | tag (16)
+ *   footer = table offset (8) | chunks (8) | plaintext length (8) | "C4CF"
+ *
+ * Algorithms 1 and 2 are the AES-256-GCM and ChaCha20-Poly1305 of RecordCipher, with the same nonces, keys
+ * and associated data (header, chunk index, last-chunk flag). The One-Time Pad XORs the chunks with the pad
+ * bytes that follow a 32-byte MAC key taken from the pad at padOffset, and tags each chunk with HMAC-SHA256
+ * (truncated to 16 bytes) over the same associated data and the ciphertext. The pad id is derived from the
+ * first 32 bytes of the pad, which PadLedger reserves so they are random but never key material; a renamed
+ * pad is still recognized and a wrong pad is refused before decrypting.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class EncryptedContainer implements Closeable {
+
+    static final byte[] MAGIC = {'C', '4', 'C', 'F'};
+    static final int VERSION = 1;
+    // Algorithm id of the One-Time Pad; the other ids are those of RecordCipher.Algorithm
+    static final int OTP = 0;
+    static final String OTP_NAME = "OTP";
+    static final int HEADER_LENGTH = 20;
+    static final int PAD_ID_LENGTH = 16;
+    static final int PAD_PARAMETERS_LENGTH = 8 + PAD_ID_LENGTH;
+    private static final int ALGORITHM_OFFSET = 5;
+    private static final int KDF_OFFSET = 6;
+    static final int MAC_KEY_LENGTH = 32;
+    static final int TAG_LENGTH = RecordCipher.TAG_LENGTH;
+    static final int ENTRY_LENGTH = 8 + 4 + TAG_LENGTH;
+    static final int FOOTER_LENGTH = 8 + 8 + 8 + MAGIC.length;
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    static final int MAX_CHUNK_SIZE = RecordCipher.MAX_RECORD_SIZE;
+    // The pad id is a hash of this many bytes from the start of the pad
+    private static final int PAD_ID_SOURCE_LENGTH = PadLedger.ID_LENGTH;
+    private static final byte[] PAD_ID_LABEL = "CSC429 pad id".getBytes(StandardCharsets.US_ASCII);
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Path file;
+    private final FileChannel in;
+    private final Header header;
+    private final long tableOffset;
+    private final long chunks;
+    private final long length;
+    // Set by unlock: the pad of a One-Time Pad container, the chunk codecs for the key and each thread's reader
+    private FileChannel pad;
+    private Path padFile;
+    private CodecFactory codecs;
+    private ThreadLocal<ChunkReader> readers;
+
+    private EncryptedContainer(Path file, FileChannel in, Header header, long tableOffset, long chunks, long length) {
+        this.file = file;
+        this.in = in;
+        this.header = header;
+        this.tableOffset = tableOffset;
+        this.chunks = chunks;
+        this.length = length;
+    }
+
+    // Encrypt a file into a container sealed with an AEAD algorithm on several threads; returns the plaintext bytes
+    public static long encrypt(RecordCipher.Algorithm algorithm, CipherKey key, int chunkSize, Path input, Path output,
+                               int threads, Progress progress) throws IOException, GeneralSecurityException {
+        Header header = Header.create(algorithm, chunkSize, key);
+        SecretKey secret = header.secretKey(key);
+        return write(header, () -> aeadCodec(header, secret), input, output, threads, progress);
+    }
+
+    // Encrypt a file into a container with the One-Time Pad; padBytes(input size) bytes of the pad from padOffset
+    // on are used, so reserve exactly that range in the pad's ledger first
+    public static long encrypt(Path pad, long padOffset, int chunkSize, Path input, Path output, int threads,
+                               Progress progress) throws IOException, GeneralSecurityException {
+        AtomicFile.checkNotInput(output, input, pad);
+        if (padOffset < PAD_ID_SOURCE_LENGTH) {
+            throw new IllegalArgumentException("The first " + PAD_ID_SOURCE_LENGTH + " bytes of a pad identify it and"
+                    + " must not be used as key material; the pad offset must be at least " + PAD_ID_SOURCE_LENGTH + ".");
+        }
+        try (FileChannel key = FileChannel.open(pad, StandardOpenOption.READ);
+             FileChannel data = FileChannel.open(input, StandardOpenOption.READ)) {
+            OTPFileEngine.checkPadLength(key.size(), padOffset, padBytes(data.size()));
+            Header header = Header.forPad(chunkSize, padOffset, padId(key));
+            SecretKey macKey = macKey(key, padOffset);
+            return write(header, () -> padCodec(header, key, macKey), input, output, threads, progress);
+        }
+    }
+
+    // Number of pad bytes a One-Time Pad container of the given plaintext length uses
+    public static long padBytes(long plaintextLength) {
+        return MAC_KEY_LENGTH + plaintextLength;
+    }
+
+    // Whether a file starts like a container, without checking anything else
+    public static boolean isContainer(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            Header.readAvailable(channel, magic, 0);
+            return !magic.hasRemaining() && Arrays.equals(magic.array(), MAGIC);
+        }
+    }
+
+    // Open a container and read its header and footer; unlock it with its key before reading any data
+    public static EncryptedContainer open(Path file) throws IOException, GeneralSecurityException {
+        FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            Header header = Header.read(in);
+            long size = in.size();
+            if (size < header.length() + FOOTER_LENGTH) {
+                throw new GeneralSecurityException("Container " + file.getFileName() + " is truncated (" + size + " bytes).");
+            }
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_LENGTH);
+            RecordCipher.readFully(in, footer, size - FOOTER_LENGTH);
+            footer.flip();
+            long tableOffset = footer.getLong();
+            long chunks = footer.getLong();
+            long length = footer.getLong();
+            byte[] magic = new byte[MAGIC.length];
+            footer.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new GeneralSecurityException("Container " + file.getFileName() + " is truncated: its chunk table is missing.");
+            }
+            // chunks are stored back to back right after the header and the table fills the rest of the file
+            if (length < 0 || length > size || chunks != header.chunks(length)
+                    || tableOffset != header.length() + length
+                    || size - FOOTER_LENGTH - tableOffset != chunks * ENTRY_LENGTH) {
+                throw new GeneralSecurityException("Container " + file.getFileName() + " has a corrupt chunk table.");
+            }
+            return new EncryptedContainer(file, in, header, tableOffset, chunks, length);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // Prepare to decrypt with a key or passphrase; the container must use an AEAD algorithm
+    public EncryptedContainer unlock(CipherKey key) throws GeneralSecurityException {
+        if (header.aead == null) {
+            throw new IllegalArgumentException("Container " + file.getFileName() + " was encrypted with a One-Time Pad;"
+                    + " select its pad file.");
+        }
+        SecretKey secret = header.secretKey(key);
+        codecs = () -> aeadCodec(header, secret);
+        readers = new ThreadLocal<>();
+        return this;
+    }
+
+    // Prepare to decrypt with a pad file, refusing a pad other than the one the container was encrypted with
+    public EncryptedContainer unlock(Path padFile) throws IOException, GeneralSecurityException {
+        if (header.aead != null) {
+            throw new IllegalArgumentException("Container " + file.getFileName() + " was encrypted with "
+                    + header.aead + "; it needs a key or passphrase, not a pad.");
+        }
+        FileChannel key = FileChannel.open(padFile, StandardOpenOption.READ);
+        try {
+            byte[] id = padId(key);
+            if (!MessageDigest.isEqual(id, header.padId)) {
+                throw new IllegalArgumentException("Pad " + padFile.getFileName() + " (id " + DigestEngine.toHex(id)
+                        + ") is not the pad of " + file.getFileName() + " (id " + padId() + ").");
+            }
+            OTPFileEngine.checkPadLength(key.size(), header.padOffset, padBytes(length));
+            SecretKey macKey = macKey(key, header.padOffset);
+            if (pad != null) {
+                pad.close();
+            }
+            pad = key;
+            this.padFile = padFile;
+            codecs = () -> padCodec(header, key, macKey);
+            readers = new ThreadLocal<>();
+            return this;
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            key.close();
+            throw e;
+        }
+    }
+
+    // Decrypt [offset, offset + length) of the plaintext, reading only the chunks that cover it
+    public byte[] read(long offset, int length) throws IOException, GeneralSecurityException {
+        byte[] result = new byte[length];
+        ByteBuffer target = ByteBuffer.wrap(result);
+        readRange(offset, length, target::put, Progress.NONE);
+        return result;
+    }
+
+    // Decrypt [offset, offset + length) of the plaintext into out, reading only the chunks that cover it
+    public long extract(long offset, long length, WritableByteChannel out, Progress progress)
+            throws IOException, GeneralSecurityException {
+        readRange(offset, length, data -> {
+            while (data.hasRemaining()) {
+                out.write(data);
+            }
+        }, progress);
+        return length;
+    }
+
+    // Decrypt the whole container into a file on several threads, verifying every chunk; returns the plaintext bytes
+    public long decryptTo(Path output, int threads, Progress progress) throws IOException, GeneralSecurityException {
+        CodecFactory unlocked = unlocked();
+        try (Metrics.Span span = Metrics.start("decrypt-container." + algorithm());
+             AtomicFile result = AtomicFile.createOutput(output, file, padFile)) {
+            FileChannel out = result.channel();
+            RecordCipher.forEachRecord(chunks, header.chunkSize, threads, () -> {
+                ChunkReader reader = new ChunkReader(unlocked.newCodec(), header.chunkSize);
+                return index -> {
+                    ByteBuffer plain = openChunk(reader, index);
+                    int count = plain.remaining();
+                    RecordCipher.writeFully(out, plain, index * header.chunkSize);
+                    progress.advance(count);
+                };
+            });
+            // only a plaintext whose every chunk verified replaces the output
+            result.commit();
+            span.completed(length);
+            return length;
+        }
+    }
+
+    // "OTP", "AES-256-GCM" or "ChaCha20-Poly1305"
+    public String algorithm() {
+        return header.aead == null ? OTP_NAME : header.aead.toString();
+    }
+
+    public boolean isOneTimePad() {
+        return header.aead == null;
+    }
+
+    public boolean isPassphrase() {
+        return header.kdf == RecordCipher.KDF_PBKDF2;
+    }
+
+    // Plaintext length in bytes
+    public long length() {
+        return length;
+    }
+
+    public int chunkSize() {
+        return header.chunkSize;
+    }
+
+    public long chunks() {
+        return chunks;
+    }
+
+    // First pad byte used by a One-Time Pad container, the start of its MAC key
+    public long padOffset() {
+        return header.padOffset;
+    }
+
+    // Id of the pad of a One-Time Pad container as hex, null for other algorithms
+    public String padId() {
+        return header.padId == null ? null : DigestEngine.toHex(header.padId);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder(file.getFileName() + ": " + algorithm() + " container, " + length
+                + " bytes in " + chunks + (chunks == 1 ? " chunk" : " chunks") + " of " + header.chunkSize + " bytes");
+        if (isOneTimePad()) {
+            description.append(", pad ").append(padId()).append(" bytes [").append(header.padOffset).append(", ")
+                    .append(header.padOffset + padBytes(length)).append(")");
+        } else if (isPassphrase()) {
+            description.append(", passphrase (PBKDF2-HMAC-SHA256, ").append(header.iterations).append(" iterations)");
+        } else {
+            description.append(", 256-bit key");
+        }
+        return description.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            in.close();
+        } finally {
+            if (pad != null) {
+                pad.close();
+            }
+        }
+    }
+
+    private void readRange(long offset, long count, Sink sink, Progress progress)
+            throws IOException, GeneralSecurityException {
+        if (offset < 0 || count < 0 || offset > length - count) {
+            throw new IllegalArgumentException("Range [" + offset + ", " + (offset + count) + ") is outside the "
+                    + length + " bytes of plaintext.");
+        }
+        CodecFactory unlocked = unlocked();
+        try (Metrics.Span span = Metrics.start("decrypt-range." + algorithm())) {
+            // random reads reuse the thread's codec and chunk buffers, so a small range allocates little
+            ChunkReader reader = readers.get();
+            if (reader == null) {
+                reader = new ChunkReader(unlocked.newCodec(), header.chunkSize);
+                readers.set(reader);
+            }
+            int chunkSize = header.chunkSize;
+            long done = 0;
+            while (done < count) {
+                long position = offset + done;
+                long index = position / chunkSize;
+                ByteBuffer plain = openChunk(reader, index);
+                int from = (int) (position - index * chunkSize);
+                int part = (int) Math.min(count - done, plain.limit() - from);
+                sink.accept(plain.limit(from + part).position(from));
+                done += part;
+                progress.advance(part);
+            }
+            span.completed(count);
+        }
+    }
+
+    // Read chunk index through its table entry, verify and decrypt it; returns the reader's plaintext, ready to read
+    private ByteBuffer openChunk(ChunkReader reader, long index) throws IOException, GeneralSecurityException {
+        ByteBuffer entry = reader.entry.clear();
+        RecordCipher.readFully(in, entry, tableOffset + index * ENTRY_LENGTH);
+        entry.flip();
+        long chunkOffset = entry.getLong();
+        int chunkLength = entry.getInt();
+        byte[] tag = reader.tag;
+        entry.get(tag);
+        boolean last = index == chunks - 1;
+        long expected = last ? length - index * header.chunkSize : header.chunkSize;
+        if (chunkLength != expected || chunkOffset < header.length() || chunkOffset > tableOffset - chunkLength) {
+            throw new GeneralSecurityException("Chunk table entry " + index + " of " + file.getFileName() + " is corrupt.");
+        }
+        ByteBuffer encrypted = reader.encrypted.clear().limit(chunkLength);
+        RecordCipher.readFully(in, encrypted, chunkOffset);
+        encrypted.limit(encrypted.capacity());
+        reader.codec.open(index, last, encrypted, tag, reader.plain.clear());
+        return reader.plain;
+    }
+
+    private CodecFactory unlocked() {
+        if (codecs == null) {
+            throw new IllegalStateException("Unlock the container with its key before reading it.");
+        }
+        return codecs;
+    }
+
+    // Write header, chunks, table and footer; every chunk is written straight to its own offset by its worker
+    private static long write(Header header, CodecFactory codecs, Path input, Path output, int threads,
+                              Progress progress) throws IOException, GeneralSecurityException {
+        try (Metrics.Span span = Metrics.start("encrypt-container." + header.algorithmName());
+             FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             AtomicFile result = AtomicFile.createOutput(output, input)) {
+            FileChannel out = result.channel();
+            long length = in.size();
+            long chunks = header.chunks(length);
+            int chunkSize = header.chunkSize;
+            long tableOffset = header.length() + length;
+            RecordCipher.writeFully(out, header.encode(), 0);
+            RecordCipher.forEachRecord(chunks, chunkSize, threads, () -> {
+                Codec codec = codecs.newCodec();
+                ByteBuffer plain = ByteBuffer.allocate(chunkSize);
+                ByteBuffer encrypted = ByteBuffer.allocate(chunkSize + TAG_LENGTH);
+                ByteBuffer entry = ByteBuffer.allocate(ENTRY_LENGTH);
+                byte[] tag = new byte[TAG_LENGTH];
+                return index -> {
+                    long position = index * chunkSize;
+                    plain.clear().limit((int) Math.min(chunkSize, length - position));
+                    RecordCipher.readFully(in, plain, position);
+                    plain.flip();
+                    int count = plain.remaining();
+                    encrypted.clear();
+                    codec.seal(index, index == chunks - 1, plain, encrypted, tag);
+                    RecordCipher.writeFully(out, encrypted, header.length() + position);
+                    entry.clear().putLong(header.length() + position).putInt(count).put(tag).flip();
+                    RecordCipher.writeFully(out, entry, tableOffset + index * ENTRY_LENGTH);
+                    progress.advance(count);
+                };
+            });
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_LENGTH).putLong(tableOffset).putLong(chunks).putLong(length)
+                    .put(MAGIC);
+            RecordCipher.writeFully(out, footer.flip(), tableOffset + chunks * ENTRY_LENGTH);
+            result.commit();
+            span.completed(length);
+            return length;
+        }
+    }
+
+    // Chunks sealed by RecordCipher's AEAD algorithms; the tag that follows the ciphertext goes to the chunk table
+    private static Codec aeadCodec(Header header, SecretKey secret) {
+        return new Codec() {
+            @Override
+            public void seal(long index, boolean last, ByteBuffer plain, ByteBuffer encrypted, byte[] tag)
+                    throws GeneralSecurityException {
+                Cipher cipher = RecordCipher.cipher(header.aead, Cipher.ENCRYPT_MODE, secret, header.noncePrefix,
+                        header.encoded, index, last);
+                cipher.doFinal(plain, encrypted);
+                encrypted.flip();
+                encrypted.get(encrypted.limit() - TAG_LENGTH, tag);
+                encrypted.limit(encrypted.limit() - TAG_LENGTH);
+            }
+
+            @Override
+            public void open(long index, boolean last, ByteBuffer encrypted, byte[] tag, ByteBuffer plain)
+                    throws GeneralSecurityException {
+                encrypted.put(tag).flip();
+                Cipher cipher = RecordCipher.cipher(header.aead, Cipher.DECRYPT_MODE, secret, header.noncePrefix,
+                        header.encoded, index, last);
+                try {
+                    cipher.doFinal(encrypted, plain);
+                } catch (AEADBadTagException e) {
+                    throw new AEADBadTagException(chunkFailure(index));
+                }
+                plain.flip();
+            }
+        };
+    }
+
+    // Chunks XORed with the pad and tagged with an HMAC under the MAC key taken from the pad
+    private static Codec padCodec(Header header, FileChannel pad, SecretKey macKey) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(macKey);
+        ByteBuffer padBytes = ByteBuffer.allocate(header.chunkSize);
+        ByteBuffer associated = ByteBuffer.allocate(9);
+        return new Codec() {
+            @Override
+            public void seal(long index, boolean last, ByteBuffer plain, ByteBuffer encrypted, byte[] tag)
+                    throws IOException {
+                XorKernel.xor(plain, readPad(index, plain.remaining()), encrypted);
+                encrypted.flip();
+                System.arraycopy(tag(index, last, encrypted), 0, tag, 0, TAG_LENGTH);
+            }
+
+            @Override
+            public void open(long index, boolean last, ByteBuffer encrypted, byte[] tag, ByteBuffer plain)
+                    throws IOException, GeneralSecurityException {
+                encrypted.flip();
+                if (!MessageDigest.isEqual(Arrays.copyOf(tag(index, last, encrypted), TAG_LENGTH), tag)) {
+                    throw new GeneralSecurityException(chunkFailure(index));
+                }
+                XorKernel.xor(encrypted, readPad(index, encrypted.remaining()), plain);
+                plain.flip();
+            }
+
+            private ByteBuffer readPad(long index, int count) throws IOException {
+                padBytes.clear().limit(count);
+                RecordCipher.readFully(pad, padBytes, header.padOffset + MAC_KEY_LENGTH + index * header.chunkSize);
+                return padBytes.flip();
+            }
+
+            private byte[] tag(long index, boolean last, ByteBuffer encrypted) {
+                mac.update(header.encoded);
+                mac.update(associated.clear().putLong(index).put((byte) (last ? 1 : 0)).flip());
+                mac.update(encrypted.duplicate());
+                return mac.doFinal();
+            }
+        };
+    }
+
+    private static String chunkFailure(long index) {
+        return "Chunk " + index + " failed authentication: wrong key or pad, or the data was modified.";
+    }
+
+    // Id of a pad: a hash of its first bytes, which identifies it without revealing any pad byte
+    static byte[] padId(FileChannel pad) throws IOException, GeneralSecurityException {
+        ByteBuffer start = ByteBuffer.allocate((int) Math.min(PAD_ID_SOURCE_LENGTH, pad.size()));
+        RecordCipher.readFully(pad, start, 0);
+        MessageDigest sha = MessageDigest.getInstance("SHA-256");
+        sha.update(PAD_ID_LABEL);
+        sha.update(start.flip());
+        return Arrays.copyOf(sha.digest(), PAD_ID_LENGTH);
+    }
+
+    private static SecretKey macKey(FileChannel pad, long padOffset) throws IOException {
+        ByteBuffer key = ByteBuffer.allocate(MAC_KEY_LENGTH);
+        RecordCipher.readFully(pad, key, padOffset);
+        SecretKey macKey = new SecretKeySpec(key.array(), MAC_ALGORITHM);
+        Arrays.fill(key.array(), (byte) 0);
+        return macKey;
+    }
+
+    // Per-thread encryption and decryption of single chunks
+    private interface Codec {
+        // Encrypt plain into encrypted, which is then ready to read, and put the chunk's tag into tag
+        void seal(long index, boolean last, ByteBuffer plain, ByteBuffer encrypted, byte[] tag)
+                throws IOException, GeneralSecurityException;
+
+        // Verify and decrypt the ciphertext before encrypted's position into plain, which is then ready to read;
+        // encrypted has room for the tag after the ciphertext
+        void open(long index, boolean last, ByteBuffer encrypted, byte[] tag, ByteBuffer plain)
+                throws IOException, GeneralSecurityException;
+    }
+
+    private interface CodecFactory {
+        Codec newCodec() throws GeneralSecurityException;
+    }
+
+    // A codec with the buffers for reading chunks through it; used by one thread at a time
+    private static final class ChunkReader {
+        final Codec codec;
+        final ByteBuffer encrypted;
+        final ByteBuffer plain;
+        final ByteBuffer entry = ByteBuffer.allocate(ENTRY_LENGTH);
+        final byte[] tag = new byte[TAG_LENGTH];
+
+        ChunkReader(Codec codec, int chunkSize) {
+            this.codec = codec;
+            this.encrypted = ByteBuffer.allocate(chunkSize + TAG_LENGTH);
+            this.plain = ByteBuffer.allocate(chunkSize);
+        }
+    }
+
+    private interface Sink {
+        void accept(ByteBuffer data) throws IOException;
+    }
+
+    // Parsed container header; its encoded bytes are the first part of every chunk's associated data
+    static final class Header {
+        // null for the One-Time Pad
+        final RecordCipher.Algorithm aead;
+        final int kdf;
+        final int chunkSize;
+        private final byte[] noncePrefix;
+        // Pad range and pad id of a One-Time Pad header; 0 and null otherwise
+        final long padOffset;
+        private final byte[] padId;
+        // PBKDF2 parameters of a kdf 1 header; null and 0 for a raw key
+        private final byte[] salt;
+        private final int iterations;
+        private final byte[] encoded;
+
+        private Header(RecordCipher.Algorithm aead, int kdf, int chunkSize, byte[] noncePrefix, long padOffset,
+                       byte[] padId, byte[] salt, int iterations) {
+            this.aead = aead;
+            this.kdf = kdf;
+            this.chunkSize = chunkSize;
+            this.noncePrefix = noncePrefix;
+            this.padOffset = padOffset;
+            this.padId = padId;
+            this.salt = salt;
+            this.iterations = iterations;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH + parametersLength(aead == null ? OTP : aead.id, kdf))
+                    .put(MAGIC).put((byte) VERSION).put((byte) (aead == null ? OTP : aead.id)).put((byte) kdf)
+                    .put((byte) 0).putInt(chunkSize).put(noncePrefix);
+            if (aead == null) {
+                header.putLong(padOffset).put(padId);
+            }
+            if (kdf == RecordCipher.KDF_PBKDF2) {
+                header.put(salt).putInt(iterations);
+            }
+            this.encoded = header.array();
+        }
+
+        // A header for an AEAD algorithm with a fresh random nonce prefix; a passphrase is recorded with this
+        // session's salt for it
+        static Header create(RecordCipher.Algorithm algorithm, int chunkSize, CipherKey key) throws GeneralSecurityException {
+            checkChunkSize(chunkSize);
+            byte[] prefix = new byte[8];
+            RANDOM.nextBytes(prefix);
+            if (key.isPassphrase()) {
+                KeyManager.DerivedKey derived = KeyManager.shared().sessionKey(key.passphrase());
+                return new Header(algorithm, RecordCipher.KDF_PBKDF2, chunkSize, prefix, 0, null, derived.salt(),
+                        derived.iterations());
+            }
+            return new Header(algorithm, RecordCipher.KDF_RAW, chunkSize, prefix, 0, null, null, 0);
+        }
+
+        // A header for the One-Time Pad range starting at padOffset of the pad with the given id
+        static Header forPad(int chunkSize, long padOffset, byte[] padId) {
+            checkChunkSize(chunkSize);
+            byte[] prefix = new byte[8];
+            RANDOM.nextBytes(prefix);
+            return new Header(null, RecordCipher.KDF_RAW, chunkSize, prefix, padOffset, padId, null, 0);
+        }
+
+        private static void checkChunkSize(int chunkSize) {
+            if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+                throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE + " bytes.");
+            }
+        }
+
+        static Header read(FileChannel in) throws IOException, GeneralSecurityException {
+            ByteBuffer fixed = ByteBuffer.allocate(HEADER_LENGTH);
+            readAvailable(in, fixed, 0);
+            if (fixed.hasRemaining()) {
+                throw new GeneralSecurityException("Input is too short to be an encrypted container.");
+            }
+            if (!Arrays.equals(Arrays.copyOf(fixed.array(), MAGIC.length), MAGIC)) {
+                throw new GeneralSecurityException("Input is not an encrypted container of this tool (bad magic).");
+            }
+            ByteBuffer parameters = ByteBuffer.allocate(parametersLength(fixed.get(ALGORITHM_OFFSET), fixed.get(KDF_OFFSET)));
+            readAvailable(in, parameters, HEADER_LENGTH);
+            if (parameters.hasRemaining()) {
+                throw new GeneralSecurityException("Input is too short to be an encrypted container.");
+            }
+            fixed.flip();
+            parameters.flip();
+            fixed.position(MAGIC.length);
+            int version = fixed.get();
+            if (version != VERSION) {
+                throw new GeneralSecurityException("Unsupported container version " + version);
+            }
+            int algorithm = fixed.get();
+            RecordCipher.Algorithm aead = algorithm == OTP ? null : RecordCipher.Algorithm.of(algorithm);
+            int kdf = fixed.get();
+            fixed.get();
+            int chunkSize = fixed.getInt();
+            if (kdf != RecordCipher.KDF_RAW && (kdf != RecordCipher.KDF_PBKDF2 || aead == null)) {
+                throw new GeneralSecurityException("Unsupported key derivation " + kdf);
+            }
+            if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+                throw new GeneralSecurityException("Invalid chunk size " + chunkSize);
+            }
+            byte[] prefix = new byte[8];
+            fixed.get(prefix);
+            long padOffset = 0;
+            byte[] padId = null;
+            if (aead == null) {
+                padOffset = parameters.getLong();
+                padId = new byte[PAD_ID_LENGTH];
+                parameters.get(padId);
+                if (padOffset < 0) {
+                    throw new GeneralSecurityException("Invalid pad offset " + padOffset);
+                }
+            }
+            byte[] salt = null;
+            int iterations = 0;
+            if (kdf == RecordCipher.KDF_PBKDF2) {
+                salt = new byte[KeyManager.SALT_LENGTH];
+                parameters.get(salt);
+                iterations = parameters.getInt();
+                if (iterations < 1 || iterations > KeyManager.MAX_ITERATIONS) {
+                    throw new GeneralSecurityException("Invalid key derivation iteration count " + iterations);
+                }
+            }
+            return new Header(aead, kdf, chunkSize, prefix, padOffset, padId, salt, iterations);
+        }
+
+        // Read until the buffer is full or the file ends
+        static void readAvailable(FileChannel in, ByteBuffer bytes, long position) throws IOException {
+            while (bytes.hasRemaining() && in.read(bytes, position + bytes.position()) >= 0) {
+                // read until the buffer is complete or the file ends
+            }
+        }
+
+        // Length of the parameters that follow the fixed header for the given algorithm and key derivation
+        private static int parametersLength(int algorithm, int kdf) {
+            return (algorithm == OTP ? PAD_PARAMETERS_LENGTH : 0)
+                    + (kdf == RecordCipher.KDF_PBKDF2 ? RecordCipher.PBKDF2_PARAMETERS_LENGTH : 0);
+        }
+
+        ByteBuffer encode() {
+            return ByteBuffer.wrap(encoded.clone());
+        }
+
+        int length() {
+            return encoded.length;
+        }
+
+        String algorithmName() {
+            return aead == null ? OTP_NAME : aead.toString();
+        }
+
+        // The chunk key: the raw key itself, or the passphrase's key derived with this header's parameters
+        SecretKey secretKey(CipherKey key) throws GeneralSecurityException {
+            if (kdf == RecordCipher.KDF_PBKDF2) {
+                if (!key.isPassphrase()) {
+                    throw new IllegalArgumentException("This container was encrypted with a passphrase, not a 256-bit key.");
+                }
+                return KeyManager.shared().derive(key.passphrase(), salt, iterations).secretKey(aead.keyAlgorithm);
+            }
+            if (key.isPassphrase()) {
+                throw new IllegalArgumentException("This container was encrypted with a 256-bit key, not a passphrase.");
+            }
+            return new SecretKeySpec(RecordCipher.rawKey(key.bytes()), aead.keyAlgorithm);
+        }
+
+        // Number of chunks for a plaintext of the given length; even an empty plaintext has one
+        long chunks(long plaintextLength) {
+            long chunks = Math.max(1, (plaintextLength + chunkSize - 1) / chunkSize);
+            if (chunks >= RecordCipher.MAX_RECORDS) {
+                throw new IllegalArgumentException("Input is too large for " + chunkSize + "-byte chunks.");
+            }
+            return chunks;
+        }
+    }
+}
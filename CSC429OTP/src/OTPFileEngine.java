@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * OTPFileEngine applies the One-Time Pad directly from file to file.
+ * The plaintext and the key pad are memory-mapped in fixed-size windows and XORed into
+ * a single reusable output buffer, so heap usage stays flat regardless of the file size.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class OTPFileEngine {
+
+    // Size of each mapped window of the input and the pad
+    static final int CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private OTPFileEngine() {
+    }
+
+    // Encrypt the input file with the pad starting at padOffset and write the result to output
+    public static long encryptFile(Path input, Path pad, long padOffset, Path output) throws IOException {
+        return xorFile("encrypt.OTP", input, pad, padOffset, output);
+    }
+
+    // OTP decryption is the same XOR with the same pad range
+    public static long decryptFile(Path input, Path pad, long padOffset, Path output) throws IOException {
+        return xorFile("decrypt.OTP", input, pad, padOffset, output);
+    }
+
+    // XOR the input file with the pad into output, timed as the named operation
+    private static long xorFile(String operation, Path input, Path pad, long padOffset, Path output) throws IOException {
+        try (Metrics.Span span = Metrics.start(operation);
+             FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel key = FileChannel.open(pad, StandardOpenOption.READ);
+             AtomicFile out = AtomicFile.createOutput(output, input, pad)) {
+            long length = xorChannels(in, key, padOffset, out.channel());
+            out.commit();
+            span.completed(length);
+            return length;
+        }
+    }
+
+    // Stream the whole input channel through the pad, one mapped window at a time
+    static long xorChannels(FileChannel in, FileChannel key, long padOffset, WritableByteChannel out) throws IOException {
+        long length = in.size();
+        checkPadLength(key.size(), padOffset, length);
+
+        ByteBuffer result = ByteBuffer.allocateDirect((int) Math.min(CHUNK_SIZE, Math.max(length, 1)));
+        long position = 0;
+        while (position < length) {
+            int chunk = (int) Math.min(CHUNK_SIZE, length - position);
+            MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, position, chunk);
+            MappedByteBuffer pad = key.map(FileChannel.MapMode.READ_ONLY, padOffset + position, chunk);
+
+            result.clear().limit(chunk);
+            XorKernel.xor(data, pad, result);
+            result.flip();
+            while (result.hasRemaining()) {
+                out.write(result);
+            }
+            position += chunk;
+        }
+        return length;
+    }
+
+    // Stream an input of unknown length (such as stdin) through the pad until end of input.
+    // When a ledger is given, every chunk's pad range is reserved in it before the chunk is used.
+    static long xorStream(ReadableByteChannel in, FileChannel key, long padOffset, WritableByteChannel out,
+                          PadLedger ledger) throws IOException {
+        long padLength = key.size();
+        ByteBuffer data = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        long position = 0;
+        while (true) {
+            data.clear();
+            while (data.hasRemaining() && in.read(data) >= 0) {
+                // keep filling until the chunk is full or the input ends
+            }
+            int chunk = data.position();
+            if (chunk == 0) {
+                return position;
+            }
+            checkPadLength(padLength, padOffset, position + chunk);
+            if (ledger != null) {
+                ledger.reserve(padOffset + position, chunk);
+            }
+            MappedByteBuffer pad = key.map(FileChannel.MapMode.READ_ONLY, padOffset + position, chunk);
+            data.flip();
+            XorKernel.xor(data, pad, data.duplicate());
+            data.flip();
+            while (data.hasRemaining()) {
+                out.write(data);
+            }
+            position += chunk;
+        }
+    }
+
+    // The pad must cover every byte of the input from the chosen offset onwards
+    static void checkPadLength(long padLength, long padOffset, long dataLength) {
+        if (padOffset < 0 || padLength - padOffset < dataLength) {
+            throw new IllegalArgumentException("Pad must be at least as long as the input for OTP encryption! (need "
+                    + dataLength + " bytes from offset " + padOffset + ", pad has " + padLength + ")");
+        }
+    }
+}
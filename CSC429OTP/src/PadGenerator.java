@@ -0,0 +1,123 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PadGenerator writes cryptographically secure One-Time Pad files of any length.
+ * Several threads each own a DRBG SecureRandom instance, fill large chunks and write them to their
+ * own offsets of the pad file, so generation is limited by the disk rather than by a single generator.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class PadGenerator {
+
+    // Bytes generated and written per task
+    static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    // One DRBG per thread so the generators never contend with each other
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(PadGenerator::newGenerator);
+    private static final ThreadLocal<byte[]> CHUNK = ThreadLocal.withInitial(() -> new byte[CHUNK_SIZE]);
+
+    private PadGenerator() {
+    }
+
+    // Create a new pad file of the given length using every core
+    public static void generate(Path pad, long length) throws IOException {
+        generate(pad, length, Runtime.getRuntime().availableProcessors());
+    }
+
+    // Create a new pad file of the given length; an existing file is never overwritten, since it may still be needed to decrypt
+    public static void generate(Path pad, long length, int threads) throws IOException {
+        generate(pad, length, threads, Progress.NONE);
+    }
+
+    // Create a new pad file, reporting every written chunk to progress; a pad left unfinished by a failure is deleted
+    public static void generate(Path pad, long length, int threads, Progress progress) throws IOException {
+        if (length < 0 || threads < 1) {
+            throw new IllegalArgumentException("Pad length must not be negative and at least one thread is required.");
+        }
+        FileChannel out = FileChannel.open(pad, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        boolean complete = false;
+        try (Metrics.Span span = Metrics.start("genpad"); out) {
+            // any ledger left behind by an earlier pad of the same name no longer applies
+            PadLedger.discard(pad);
+            AtomicLong nextChunk = new AtomicLong();
+            long chunks = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> workers = new ArrayList<>();
+                for (int i = 0; i < Math.min(threads, Math.max(chunks, 1)); i++) {
+                    workers.add(pool.submit(() -> {
+                        for (long chunk = nextChunk.getAndIncrement(); chunk < chunks; chunk = nextChunk.getAndIncrement()) {
+                            long position = chunk * CHUNK_SIZE;
+                            int size = (int) Math.min(CHUNK_SIZE, length - position);
+                            writeChunk(out, position, size);
+                            progress.advance(size);
+                        }
+                    }));
+                }
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException("Pad generation failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Pad generation interrupted", e);
+            } finally {
+                pool.shutdownNow();
+            }
+            out.force(true);
+            span.completed(length);
+            complete = true;
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(pad);
+            }
+        }
+    }
+
+    private static void writeChunk(FileChannel out, long position, int length) {
+        byte[] bytes = CHUNK.get();
+        RANDOM.get().nextBytes(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        try {
+            while (buffer.hasRemaining()) {
+                out.write(buffer, position + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 256-bit DRBG with reseeding, falling back to the platform default if DRBG is unavailable
+    private static SecureRandom newGenerator() {
+        try {
+            return SecureRandom.getInstance("DRBG",
+                    DrbgParameters.instantiation(256, DrbgParameters.Capability.RESEED_ONLY, null));
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
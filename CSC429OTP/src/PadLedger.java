@@ -0,0 +1,223 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * PadLedger enforces the "one-time" in One-Time Pad.
+ * Every byte range of a pad that is used for encryption is recorded in an append-only log next to the
+ * pad ("pad.bin.ledger", one 16-byte offset/length record per reservation), and an in-memory index of
+ * the used ranges answers overlap checks in O(log n). Reservations are serialized inside the JVM and
+ * across processes with a lock on the log file; each reservation first replays records appended by others.
+ * The first ID_LENGTH bytes of every pad identify it (see EncryptedContainer) and are reserved in the ledger
+ * before anything else, so they are never handed out as key material.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class PadLedger {
+
+    static final String SUFFIX = ".ledger";
+    // Bytes at the start of a pad that name it and are never used for encryption
+    public static final int ID_LENGTH = 32;
+    private static final int RECORD_SIZE = 16;
+
+    // One ledger per pad file in this JVM, so concurrent workers share the same index. Ledgers are found by the
+    // file's identity (its file key, or its real path where the file system has none), so a symbolic or hard
+    // link to a pad reaches the same ledger instead of opening and locking the log a second time.
+    private static final Map<Object, PadLedger> LEDGERS = new HashMap<>();
+
+    private final Path pad;
+    private final Path log;
+    private final long padLength;
+    // Start of each used range mapped to its end; adjacent and overlapping ranges are merged
+    private final TreeMap<Long, Long> used = new TreeMap<>();
+    private long replayedBytes;
+    private long highWater;
+
+    private PadLedger(Path pad) throws IOException {
+        this.pad = pad;
+        this.log = pad.resolveSibling(pad.getFileName() + SUFFIX);
+        this.padLength = Files.size(pad);
+    }
+
+    // The shared ledger of a pad file
+    public static PadLedger forPad(Path pad) throws IOException {
+        Path real = pad.toRealPath();
+        Object key = identity(real);
+        synchronized (LEDGERS) {
+            PadLedger ledger = LEDGERS.get(key);
+            // a file key can be reused once its file is deleted, so make sure the cached ledger's pad is this file
+            if (ledger == null || !Files.exists(ledger.pad) || !Files.isSameFile(ledger.pad, real)) {
+                ledger = new PadLedger(real);
+                LEDGERS.put(key, ledger);
+            }
+            return ledger;
+        }
+    }
+
+    // Forget a pad's ledger because the pad file itself has just been created anew
+    static void discard(Path pad) throws IOException {
+        Path real = pad.toRealPath();
+        synchronized (LEDGERS) {
+            LEDGERS.remove(identity(real));
+            Files.deleteIfExists(real.resolveSibling(real.getFileName() + SUFFIX));
+        }
+    }
+
+    private static Object identity(Path real) throws IOException {
+        Object fileKey = Files.readAttributes(real, BasicFileAttributes.class).fileKey();
+        return fileKey != null ? fileKey : real;
+    }
+
+    // Atomically take the next unused range of the given length and return its offset
+    public synchronized long reserveNext(long length) throws IOException {
+        try (FileChannel channel = openLog()) {
+            lockExclusively(channel);
+            replay(channel);
+            reserveId(channel);
+            long offset = highWater;
+            checkRange(offset, length);
+            append(channel, offset, length);
+            return offset;
+        }
+    }
+
+    // Atomically reserve exactly [offset, offset + length), refusing if any byte of it was used before
+    public synchronized void reserve(long offset, long length) throws IOException {
+        try (FileChannel channel = openLog()) {
+            lockExclusively(channel);
+            replay(channel);
+            reserveId(channel);
+            checkRange(offset, length);
+            if (offset < ID_LENGTH && length > 0) {
+                throw new IllegalStateException("Pad bytes [0, " + ID_LENGTH + ") of " + pad.getFileName()
+                        + " identify the pad and are never used for encryption; choose an offset of at least "
+                        + ID_LENGTH + ".");
+            }
+            if (overlaps(offset, length)) {
+                throw new IllegalStateException("Pad bytes [" + offset + ", " + (offset + length) + ") of " + pad.getFileName()
+                        + " were already used. Reusing a One-Time Pad breaks its security!");
+            }
+            append(channel, offset, length);
+        }
+    }
+
+    // Offset the next reserveNext call would return, as far as this process currently knows
+    public synchronized long nextFree() throws IOException {
+        try (FileChannel channel = openLog()) {
+            lockExclusively(channel);
+            replay(channel);
+            reserveId(channel);
+            return highWater;
+        }
+    }
+
+    // Whether any byte of the range has been used, as far as this process currently knows
+    public synchronized boolean isUsed(long offset, long length) {
+        return overlaps(offset, length);
+    }
+
+    private boolean overlaps(long offset, long length) {
+        if (length == 0) {
+            return false;
+        }
+        long end = offset + length;
+        Map.Entry<Long, Long> before = used.floorEntry(offset);
+        if (before != null && before.getValue() > offset) {
+            return true;
+        }
+        Long after = used.ceilingKey(offset);
+        return after != null && after < end;
+    }
+
+    // Record the pad's id bytes as used, once per ledger; a ledger that already used them keeps its records
+    private void reserveId(FileChannel channel) throws IOException {
+        long idBytes = Math.min(ID_LENGTH, padLength);
+        Map.Entry<Long, Long> first = used.firstEntry();
+        if (idBytes > 0 && (first == null || first.getKey() > 0 || first.getValue() < idBytes)) {
+            append(channel, 0, idBytes);
+        }
+    }
+
+    private void checkRange(long offset, long length) {
+        if (offset < 0 || length < 0 || padLength - offset < length) {
+            throw new IllegalArgumentException("Pad " + pad.getFileName() + " has no unused range of " + length
+                    + " bytes at offset " + offset + " (pad has " + padLength + " bytes)");
+        }
+    }
+
+    // Held until the channel is closed, which releases it
+    private static FileLock lockExclusively(FileChannel channel) throws IOException {
+        return channel.lock();
+    }
+
+    private FileChannel openLog() throws IOException {
+        return FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // Read the records appended since the last replay, including those written by other processes
+    private void replay(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long complete = size - size % RECORD_SIZE;
+        if (complete < size) {
+            // a writer crashed mid-record; drop the torn tail so later records stay aligned
+            channel.truncate(complete);
+        }
+        if (complete <= replayedBytes) {
+            return;
+        }
+        ByteBuffer records = ByteBuffer.allocate((int) Math.min(complete - replayedBytes, 1 << 20));
+        while (replayedBytes < complete) {
+            records.clear().limit((int) Math.min(records.capacity(), complete - replayedBytes));
+            while (records.hasRemaining()) {
+                channel.read(records, replayedBytes + records.position());
+            }
+            records.flip();
+            while (records.remaining() >= RECORD_SIZE) {
+                add(records.getLong(), records.getLong());
+            }
+            replayedBytes += records.limit();
+        }
+    }
+
+    private void append(FileChannel channel, long offset, long length) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).putLong(offset).putLong(length).flip();
+        while (record.hasRemaining()) {
+            channel.write(record, replayedBytes + record.position());
+        }
+        channel.force(false);
+        replayedBytes += RECORD_SIZE;
+        add(offset, length);
+    }
+
+    // Insert a used range into the index, merging it with any range it touches
+    private void add(long offset, long length) {
+        if (length <= 0) {
+            return;
+        }
+        long start = offset;
+        long end = offset + length;
+        Map.Entry<Long, Long> before = used.floorEntry(start);
+        if (before != null && before.getValue() >= start) {
+            start = before.getKey();
+            end = Math.max(end, before.getValue());
+            used.remove(before.getKey());
+        }
+        Map.Entry<Long, Long> after = used.ceilingEntry(start);
+        while (after != null && after.getKey() <= end) {
+            end = Math.max(end, after.getValue());
+            used.remove(after.getKey());
+            after = used.ceilingEntry(start);
+        }
+        used.put(start, end);
+        highWater = Math.max(highWater, end);
+    }
+}
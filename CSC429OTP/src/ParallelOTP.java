@@ -0,0 +1,141 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ParallelOTP encrypts a single large file on all cores.
+ * The One-Time Pad has no chaining, so every byte range is independent: the file is split into aligned
+ * segments that are XORed by a ForkJoinPool and written to their own offsets of the output with
+ * positional FileChannel writes.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class ParallelOTP {
+
+    // Largest piece handled by one task; split points are multiples of this size
+    static final int SEGMENT_SIZE = OTPFileEngine.CHUNK_SIZE;
+
+    // One reusable output buffer per worker thread
+    private static final ThreadLocal<ByteBuffer> RESULT_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(SEGMENT_SIZE));
+
+    private ParallelOTP() {
+    }
+
+    // Encrypt the input file with the pad starting at padOffset, using the common ForkJoinPool
+    public static long encryptFile(Path input, Path pad, long padOffset, Path output) throws IOException {
+        return encryptFile(input, pad, padOffset, output, ForkJoinPool.commonPool());
+    }
+
+    // Encrypt the input file with the pad starting at padOffset, using the given pool
+    public static long encryptFile(Path input, Path pad, long padOffset, Path output, ForkJoinPool pool) throws IOException {
+        return encryptFile(input, pad, padOffset, output, pool, Progress.NONE);
+    }
+
+    // Encrypt the input file using the given pool, reporting every finished segment to progress
+    public static long encryptFile(Path input, Path pad, long padOffset, Path output, ForkJoinPool pool, Progress progress)
+            throws IOException {
+        return xorFile("encrypt.OTP", input, pad, padOffset, output, pool, progress);
+    }
+
+    // OTP decryption is the same XOR with the same pad range
+    public static long decryptFile(Path input, Path pad, long padOffset, Path output) throws IOException {
+        return decryptFile(input, pad, padOffset, output, ForkJoinPool.commonPool());
+    }
+
+    // OTP decryption is the same XOR with the same pad range
+    public static long decryptFile(Path input, Path pad, long padOffset, Path output, ForkJoinPool pool) throws IOException {
+        return decryptFile(input, pad, padOffset, output, pool, Progress.NONE);
+    }
+
+    // OTP decryption is the same XOR with the same pad range
+    public static long decryptFile(Path input, Path pad, long padOffset, Path output, ForkJoinPool pool, Progress progress)
+            throws IOException {
+        return xorFile("decrypt.OTP", input, pad, padOffset, output, pool, progress);
+    }
+
+    // XOR the input with the pad into output, timed as the named operation
+    private static long xorFile(String operation, Path input, Path pad, long padOffset, Path output, ForkJoinPool pool,
+                                Progress progress) throws IOException {
+        try (Metrics.Span span = Metrics.start(operation);
+             FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel key = FileChannel.open(pad, StandardOpenOption.READ);
+             AtomicFile out = AtomicFile.createOutput(output, input, pad)) {
+            long length = in.size();
+            OTPFileEngine.checkPadLength(key.size(), padOffset, length);
+            try {
+                pool.invoke(new Segment(in, key, padOffset, out.channel(), progress, 0, length));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.commit();
+            span.completed(length);
+            return length;
+        }
+    }
+
+    // Byte range [from, to) of the input, split in half at a segment boundary until it fits one segment
+    private static final class Segment extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel in;
+        private final transient FileChannel key;
+        private final transient FileChannel out;
+        private final transient Progress progress;
+        private final long padOffset;
+        private final long from;
+        private final long to;
+
+        Segment(FileChannel in, FileChannel key, long padOffset, FileChannel out, Progress progress, long from, long to) {
+            this.in = in;
+            this.key = key;
+            this.padOffset = padOffset;
+            this.out = out;
+            this.progress = progress;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            long length = to - from;
+            if (length <= SEGMENT_SIZE) {
+                try {
+                    xorSegment();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+            long segments = (length + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+            long middle = from + (segments / 2) * SEGMENT_SIZE;
+            invokeAll(new Segment(in, key, padOffset, out, progress, from, middle),
+                    new Segment(in, key, padOffset, out, progress, middle, to));
+        }
+
+        private void xorSegment() throws IOException {
+            int length = (int) (to - from);
+            if (length == 0) {
+                return;
+            }
+            MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, from, length);
+            MappedByteBuffer pad = key.map(FileChannel.MapMode.READ_ONLY, padOffset + from, length);
+            ByteBuffer result = RESULT_BUFFER.get();
+            result.clear().limit(length);
+            XorKernel.xor(data, pad, result);
+            result.flip();
+            long position = from;
+            while (result.hasRemaining()) {
+                position += out.write(result, position);
+            }
+            progress.advance(length);
+        }
+    }
+}
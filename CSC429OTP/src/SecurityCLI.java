@@ -0,0 +1,881 @@
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * SecurityCLI is the headless entry point of the CSC 429 Computer Security Project.
+ * It runs the same operations as the GUI from the command line, over files or stdin/stdout,
+ * and can execute a manifest of many jobs in a single JVM. It never loads javax.swing.
+ *
+ * Usage:
+ *   encrypt --in FILE|- --pad PADFILE [--pad-offset N] --out FILE|- [--threads N]   (offset defaults to the next unused pad range)
+ *   decrypt --in FILE|- --pad PADFILE --pad-offset N --out FILE|- [--threads N]      (N as printed by encrypt)
+ *   encrypt --cipher AES-256-GCM|ChaCha20-Poly1305 KEY --in FILE|- --out FILE|- [--threads N]
+ *   decrypt --cipher AES-256-GCM|ChaCha20-Poly1305 KEY --in FILE|- --out FILE|- [--threads N]
+ *       where KEY is --key HEX | --key-file FILE | --passphrase TEXT | --passphrase-file FILE
+ *   pack --in FILE --out FILE (--pad PADFILE [--pad-offset N] | --cipher AES-256-GCM|ChaCha20-Poly1305 KEY)
+ *        [--chunk-size BYTES[K|M]] [--threads N]          (writes an EncryptedContainer)
+ *   unpack --in FILE --out FILE|- (--pad PADFILE | KEY) [--offset BYTES[K|M|G]] [--length BYTES[K|M|G]] [--threads N]
+ *   inspect FILE ...      (algorithm, pad, chunks and length of containers, without any key)
+ *   encrypt-tree --in DIR --pad PADFILE [--pad-offset N] --out DIR [--threads N] [--chunk-size BYTES] [--max-in-flight N]
+ *   decrypt-tree --in DIR --pad PADFILE --out DIR [--threads N] [--chunk-size BYTES] [--max-in-flight N]
+ *   genpad --size BYTES[K|M|G] --out PADFILE [--threads N]
+ *   hash [--alg SHA-256[,SHA-512,SHA3-256,CRC32C]] FILE|- ...
+ *   hmac (--key TEXT | --key-file FILE) [--alg HmacSHA256|HmacSHA512] FILE|- ...
+ *   hmac-verify (--key TEXT | --key-file FILE) [--alg HmacSHA256|HmacSHA512] --tags TAGFILE [--threads N]
+ *   sign --keystore FILE --storepass PASSWORD [--alias NAME] [--threads N] FILE ...     (writes FILE.sig)
+ *   verify-sig --keystore FILE --storepass PASSWORD [--alias NAME] [--threads N] FILE ... (reads FILE.sig)
+ *   batch MANIFEST|-      (one of the commands above per line, # starts a comment, "quote" fields with spaces)
+ *
+ * Any command also takes --metrics-out FILE [--metrics-interval SECONDS]: the metrics of every operation
+ * (see Metrics) are then written to FILE as JSON every interval (default 10 s) and once more at the end.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+public final class SecurityCLI {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final String STDIO = "-";
+    private static final String OTP_CIPHER = "OTP";
+    private static final String METRICS_OUT = "--metrics-out";
+    private static final String METRICS_INTERVAL = "--metrics-interval";
+    private static final long DEFAULT_METRICS_INTERVAL_SECONDS = 10;
+
+    private final PrintStream log;
+
+    SecurityCLI(PrintStream log) {
+        this.log = log;
+    }
+
+    // Main method to run a single command, e.g. "java SecurityCLI encrypt --in a.txt --pad a.pad --out a.otp"
+    public static void main(String[] args) {
+        System.exit(new SecurityCLI(System.err).runWithMetrics(args));
+    }
+
+    // Run one command, dumping metrics while it runs if --metrics-out is given anywhere on the command line
+    int runWithMetrics(String[] args) {
+        List<String> command = new ArrayList<>();
+        String metricsOut = null;
+        String interval = null;
+        for (int i = 0; i < args.length; i++) {
+            if ((args[i].equals(METRICS_OUT) || args[i].equals(METRICS_INTERVAL)) && i + 1 < args.length) {
+                if (args[i].equals(METRICS_OUT)) {
+                    metricsOut = args[++i];
+                } else {
+                    interval = args[++i];
+                }
+            } else {
+                command.add(args[i]);
+            }
+        }
+        if (metricsOut == null) {
+            return run(command.toArray(new String[0]));
+        }
+        long seconds;
+        try {
+            seconds = interval == null ? DEFAULT_METRICS_INTERVAL_SECONDS : Long.parseLong(interval);
+        } catch (NumberFormatException e) {
+            seconds = -1;
+        }
+        if (seconds < 1) {
+            log.println("Error: " + METRICS_INTERVAL + " must be a positive number of seconds: " + interval);
+            return EXIT_USAGE;
+        }
+        Metrics.Dump dump = Metrics.dumpPeriodically(Paths.get(metricsOut), seconds * 1000);
+        try {
+            return run(command.toArray(new String[0]));
+        } finally {
+            dump.close();
+        }
+    }
+
+    // Run one command and return its exit status
+    int run(String[] args) {
+        if (args.length == 0) {
+            printUsage();
+            return EXIT_USAGE;
+        }
+        try {
+            String command = args[0];
+            List<String> rest = List.of(args).subList(1, args.length);
+            switch (command) {
+                case "encrypt":
+                case "decrypt":
+                    Options options = new Options(rest);
+                    String cipher = options.value("--cipher", OTP_CIPHER);
+                    if (cipher.equals(OTP_CIPHER)) {
+                        otp(command, options);
+                    } else {
+                        cipher(command, cipher, options);
+                    }
+                    return EXIT_OK;
+                case "pack":
+                    pack(new Options(rest));
+                    return EXIT_OK;
+                case "unpack":
+                    unpack(new Options(rest));
+                    return EXIT_OK;
+                case "inspect":
+                    inspect(new Options(rest));
+                    return EXIT_OK;
+                case "encrypt-tree":
+                case "decrypt-tree":
+                    return tree(command, new Options(rest));
+                case "genpad":
+                    genpad(new Options(rest));
+                    return EXIT_OK;
+                case "hash":
+                    hash(new Options(rest));
+                    return EXIT_OK;
+                case "hmac":
+                    hmac(new Options(rest));
+                    return EXIT_OK;
+                case "hmac-verify":
+                    return hmacVerify(new Options(rest));
+                case "sign":
+                case "verify-sig":
+                    return signatures(command, new Options(rest));
+                case "batch":
+                    return batch(new Options(rest));
+                case "help":
+                case "--help":
+                    printUsage();
+                    return EXIT_OK;
+                default:
+                    throw new UsageException("Unknown command: " + command);
+            }
+        } catch (UsageException e) {
+            log.println("Error: " + e.getMessage());
+            printUsage();
+            return EXIT_USAGE;
+        } catch (IOException | RuntimeException | GeneralSecurityException e) {
+            // any failure ends only this command, so the remaining lines of a batch manifest still run
+            log.println("Error: " + describe(e));
+            return EXIT_FAILED;
+        }
+    }
+
+    // OTP encrypt/decrypt from file or stdin to file or stdout; file to file runs on --threads cores.
+    // Encryption reserves its pad range in the pad's ledger first and refuses to reuse any pad byte, and prints the
+    // offset it used. Raw output carries no header, so decryption never guesses the offset: --pad-offset is required.
+    private void otp(String command, Options options) throws IOException {
+        String in = options.required("--in");
+        String out = options.required("--out");
+        Path pad = Paths.get(options.required("--pad"));
+        checkOutput(out, in, pad.toString());
+        boolean encrypt = command.equals("encrypt");
+        PadLedger ledger = encrypt ? PadLedger.forPad(pad) : null;
+        long padOffset;
+        if (!encrypt) {
+            padOffset = options.longValue("--pad-offset");
+        } else if (in.equals(STDIO)) {
+            // the length is unknown up front, so each chunk is reserved as it is streamed
+            padOffset = options.longValue("--pad-offset", ledger.nextFree());
+        } else {
+            long length = Files.size(Paths.get(in));
+            padOffset = options.longValue("--pad-offset", -1);
+            if (padOffset < 0) {
+                padOffset = ledger.reserveNext(length);
+            } else {
+                ledger.reserve(padOffset, length);
+            }
+        }
+        long start = System.nanoTime();
+        long bytes;
+        if (!in.equals(STDIO) && !out.equals(STDIO)) {
+            int threads = (int) options.longValue("--threads", Runtime.getRuntime().availableProcessors());
+            if (threads < 1) {
+                throw new UsageException("--threads must be positive");
+            }
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                bytes = encrypt
+                        ? ParallelOTP.encryptFile(Paths.get(in), pad, padOffset, Paths.get(out), pool)
+                        : ParallelOTP.decryptFile(Paths.get(in), pad, padOffset, Paths.get(out), pool);
+            } finally {
+                pool.shutdown();
+            }
+            report(command + "ed " + in + " -> " + out + " with pad bytes " + range(padOffset, bytes)
+                    + padOffsetHint(encrypt, padOffset), bytes, start);
+            return;
+        }
+        try (Metrics.Span span = Metrics.start(command + "." + OTP_CIPHER);
+             FileChannel key = FileChannel.open(pad, StandardOpenOption.READ);
+             Output output = openOutput(out)) {
+            if (in.equals(STDIO)) {
+                bytes = OTPFileEngine.xorStream(Channels.newChannel(System.in), key, padOffset, output.channel(), ledger);
+            } else {
+                try (FileChannel input = FileChannel.open(Paths.get(in), StandardOpenOption.READ)) {
+                    bytes = OTPFileEngine.xorChannels(input, key, padOffset, output.channel());
+                }
+            }
+            output.commit();
+            span.completed(bytes);
+        }
+        report(command + "ed " + in + " -> " + out + " with pad bytes " + range(padOffset, bytes)
+                + padOffsetHint(encrypt, padOffset), bytes, start);
+    }
+
+    // The option that decrypts raw OTP output again, which is the only place its pad offset is recorded
+    private static String padOffsetHint(boolean encrypt, long padOffset) {
+        return encrypt ? " (decrypt with --pad-offset " + padOffset + ")" : "";
+    }
+
+    // Encrypt/decrypt with a keyed cipher from the CipherRegistry, from file or stdin to file or stdout.
+    // File to file runs on --threads cores. An output file is only replaced once the whole result is written and,
+    // for decryption, verified; a failure leaves an existing output file as it was.
+    private void cipher(String command, String name, Options options) throws IOException, GeneralSecurityException {
+        String in = options.required("--in");
+        String out = options.required("--out");
+        CipherKey key = cipherKey(options);
+        int threads = (int) options.longValue("--threads", Runtime.getRuntime().availableProcessors());
+        if (threads < 1) {
+            throw new UsageException("--threads must be positive");
+        }
+        checkOutput(out, in);
+        CipherProvider cipher = CipherRegistry.load().get(name);
+        cipher.checkKey(key, in.equals(STDIO) ? 0 : Files.size(Paths.get(in)));
+        boolean encrypt = command.equals("encrypt");
+        InputStream stdin = System.in;
+        String algorithm = name;
+        if (!encrypt && cipher instanceof RecordCipherProvider) {
+            // decryption follows the algorithm in the header, which need not be the one given as --cipher
+            if (in.equals(STDIO)) {
+                PushbackInputStream peek = new PushbackInputStream(System.in, RecordCipher.HEADER_LENGTH);
+                byte[] header = peek.readNBytes(RecordCipher.HEADER_LENGTH);
+                peek.unread(header);
+                stdin = peek;
+                algorithm = RecordCipher.algorithm(header).toString();
+            } else {
+                try (FileChannel input = FileChannel.open(Paths.get(in), StandardOpenOption.READ)) {
+                    algorithm = RecordCipher.algorithm(input).toString();
+                }
+            }
+        }
+        long start = System.nanoTime();
+        long bytes;
+        if (!in.equals(STDIO) && !out.equals(STDIO)) {
+            bytes = encrypt
+                    ? cipher.encryptFile(Paths.get(in), Paths.get(out), key, threads, Progress.NONE)
+                    : cipher.decryptFile(Paths.get(in), Paths.get(out), key, threads, Progress.NONE);
+        } else {
+            try (ReadableByteChannel input = in.equals(STDIO)
+                    ? Channels.newChannel(stdin) : FileChannel.open(Paths.get(in), StandardOpenOption.READ);
+                 Output output = openOutput(out)) {
+                bytes = encrypt
+                        ? cipher.encrypt(input, output.channel(), key, Progress.NONE)
+                        : cipher.decrypt(input, output.channel(), key, Progress.NONE);
+                output.commit();
+            }
+        }
+        report(command + "ed " + in + " -> " + out + " with " + algorithm, bytes, start);
+    }
+
+    // Encrypt a file into a self-describing container, with a pad range reserved in the pad's ledger or a keyed cipher
+    private void pack(Options options) throws IOException, GeneralSecurityException {
+        Path in = Paths.get(options.required("--in"));
+        Path out = Paths.get(options.required("--out"));
+        int threads = threads(options);
+        int chunkSize = EncryptedContainer.DEFAULT_CHUNK_SIZE;
+        if (options.value("--chunk-size", null) != null) {
+            long size = options.sizeValue("--chunk-size");
+            if (size < 1 || size > EncryptedContainer.MAX_CHUNK_SIZE) {
+                throw new UsageException("--chunk-size must be between 1 and " + EncryptedContainer.MAX_CHUNK_SIZE + " bytes");
+            }
+            chunkSize = (int) size;
+        }
+        checkOutput(out.toString(), in.toString(), options.value("--pad", null));
+        long start = System.nanoTime();
+        long bytes;
+        String with;
+        if (options.value("--pad", null) != null) {
+            Path pad = Paths.get(options.value("--pad", null));
+            long padBytes = EncryptedContainer.padBytes(Files.size(in));
+            PadLedger ledger = PadLedger.forPad(pad);
+            long padOffset = options.longValue("--pad-offset", -1);
+            if (padOffset < 0) {
+                padOffset = ledger.reserveNext(padBytes);
+            } else {
+                ledger.reserve(padOffset, padBytes);
+            }
+            bytes = EncryptedContainer.encrypt(pad, padOffset, chunkSize, in, out, threads, Progress.NONE);
+            with = "pad bytes " + range(padOffset, padBytes);
+        } else {
+            RecordCipher.Algorithm algorithm = RecordCipher.Algorithm.named(options.required("--cipher"));
+            bytes = EncryptedContainer.encrypt(algorithm, cipherKey(options), chunkSize, in, out, threads, Progress.NONE);
+            with = algorithm.toString();
+        }
+        report("packed " + in + " -> " + out + " with " + with, bytes, start);
+    }
+
+    // Decrypt a container, or only the --offset/--length range of its plaintext, reading just the chunks needed.
+    // The whole plaintext is decrypted on --threads cores; an output file is only replaced once every chunk verified.
+    private void unpack(Options options) throws IOException, GeneralSecurityException {
+        String in = options.required("--in");
+        String out = options.required("--out");
+        int threads = threads(options);
+        checkOutput(out, in, options.value("--pad", null));
+        long start = System.nanoTime();
+        long bytes;
+        try (EncryptedContainer container = EncryptedContainer.open(Paths.get(in))) {
+            if (container.isOneTimePad() || options.value("--pad", null) != null) {
+                container.unlock(Paths.get(options.required("--pad")));
+            } else {
+                container.unlock(cipherKey(options));
+            }
+            long offset = options.value("--offset", null) == null ? 0 : options.sizeValue("--offset");
+            long length = options.value("--length", null) == null
+                    ? container.length() - offset : options.sizeValue("--length");
+            if (offset == 0 && length == container.length() && !out.equals(STDIO)) {
+                bytes = container.decryptTo(Paths.get(out), threads, Progress.NONE);
+            } else {
+                try (Output output = openOutput(out)) {
+                    bytes = container.extract(offset, length, output.channel(), Progress.NONE);
+                    output.commit();
+                }
+            }
+            report("unpacked " + in + " " + range(offset, bytes) + " -> " + out + " with " + container.algorithm(),
+                    bytes, start);
+        }
+    }
+
+    // Print what each container says about itself; no key is needed
+    private void inspect(Options options) throws IOException, GeneralSecurityException {
+        List<String> inputs = options.positional();
+        if (inputs.isEmpty()) {
+            throw new UsageException("inspect needs at least one container file");
+        }
+        for (String in : inputs) {
+            try (EncryptedContainer container = EncryptedContainer.open(Paths.get(in))) {
+                System.out.println(container);
+            }
+        }
+    }
+
+    private static int threads(Options options) {
+        int threads = (int) options.longValue("--threads", Runtime.getRuntime().availableProcessors());
+        if (threads < 1) {
+            throw new UsageException("--threads must be positive");
+        }
+        return threads;
+    }
+
+    private static String range(long offset, long length) {
+        return "[" + offset + ", " + (offset + length) + ")";
+    }
+
+    // Encrypt or decrypt a whole directory tree through the parallel pipeline and print its throughput report
+    private int tree(String command, Options options) throws IOException {
+        Path in = Paths.get(options.required("--in"));
+        Path out = Paths.get(options.required("--out"));
+        Path pad = Paths.get(options.required("--pad"));
+        BatchPipeline pipeline = new BatchPipeline(
+                (int) options.longValue("--threads", Runtime.getRuntime().availableProcessors()),
+                (int) options.longValue("--chunk-size", BatchPipeline.DEFAULT_CHUNK_SIZE),
+                (int) options.longValue("--max-in-flight", BatchPipeline.DEFAULT_MAX_IN_FLIGHT));
+        BatchPipeline.Report report;
+        if (command.equals("decrypt-tree")) {
+            report = pipeline.decryptTree(in, pad, out);
+        } else if (options.value("--pad-offset", null) != null) {
+            report = pipeline.encryptTree(in, pad, options.longValue("--pad-offset", 0), out);
+        } else {
+            report = pipeline.encryptTree(in, pad, out);
+        }
+        log.println(report);
+        return report.failures() == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    // Write a new random pad file that encrypt/decrypt can use directly as --pad
+    private void genpad(Options options) throws IOException {
+        long size = options.sizeValue("--size");
+        Path out = Paths.get(options.required("--out"));
+        int threads = (int) options.longValue("--threads", Runtime.getRuntime().availableProcessors());
+        long start = System.nanoTime();
+        PadGenerator.generate(out, size, threads);
+        report("generated pad " + out, size, start);
+    }
+
+    // Print the digests of each input, reading every input only once however many algorithms are requested.
+    // A single algorithm uses the familiar "hex  name" format, several use "ALG (name) = hex".
+    private void hash(Options options) throws IOException, NoSuchAlgorithmException {
+        List<String> algorithms = List.of(options.value("--alg", "SHA-256").split(","));
+        List<String> inputs = options.positional();
+        if (inputs.isEmpty()) {
+            throw new UsageException("hash needs at least one input file or -");
+        }
+        for (String in : inputs) {
+            Map<String, byte[]> digests = in.equals(STDIO)
+                    ? DigestEngine.digest(Channels.newChannel(System.in), algorithms)
+                    : DigestEngine.digest(Paths.get(in), algorithms);
+            for (Map.Entry<String, byte[]> digest : digests.entrySet()) {
+                String hex = DisplayCodec.HEX.encode(digest.getValue());
+                System.out.println(algorithms.size() == 1 ? hex + "  " + in : digest.getKey() + " (" + in + ") = " + hex);
+            }
+        }
+    }
+
+    // Print one "hex  name" tag line per input; the output can be fed back to hmac-verify as its tag file
+    private void hmac(Options options) throws IOException, GeneralSecurityException {
+        HmacService.Key key = HmacService.key(options.value("--alg", HmacService.HMAC_SHA256), secretKey(options));
+        List<String> inputs = options.positional();
+        if (inputs.isEmpty()) {
+            throw new UsageException("hmac needs at least one input file or -");
+        }
+        for (String in : inputs) {
+            byte[] tag = in.equals(STDIO)
+                    ? HmacService.tag(key, Channels.newChannel(System.in), Progress.NONE)
+                    : HmacService.tag(key, Paths.get(in), Progress.NONE);
+            System.out.println(DisplayCodec.HEX.encode(tag) + "  " + in);
+        }
+    }
+
+    // Verify every "hex  name" line of a tag file concurrently and report the ones that do not match
+    private int hmacVerify(Options options) throws IOException, GeneralSecurityException {
+        HmacService.Key key = HmacService.key(options.value("--alg", HmacService.HMAC_SHA256), secretKey(options));
+        Map<Path, byte[]> expected = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(Paths.get(options.required("--tags")), StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = line.split("  ", 2);
+            if (fields.length != 2) {
+                throw new IOException("Malformed tag line: " + line);
+            }
+            expected.put(Paths.get(fields[1]), DisplayCodec.HEX.decode(fields[0]));
+        }
+        int threads = (int) options.longValue("--threads", Runtime.getRuntime().availableProcessors());
+        if (threads < 1) {
+            throw new UsageException("--threads must be positive");
+        }
+        long start = System.nanoTime();
+        Map<Path, HmacService.Result> results;
+        try {
+            results = HmacService.verifyAll(key, expected, threads);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Verification interrupted", e);
+        }
+        long bad = 0;
+        for (Map.Entry<Path, HmacService.Result> result : results.entrySet()) {
+            if (result.getValue() != HmacService.Result.VALID) {
+                bad++;
+                System.out.println(result.getValue() + "  " + result.getKey());
+            }
+        }
+        log.printf("Verified %d tags in %.3f s: %d valid, %d failed%n",
+                results.size(), (System.nanoTime() - start) / 1e9, results.size() - bad, bad);
+        return bad == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    // Sign every file into FILE.sig, or verify every file against FILE.sig, in parallel with one cached key
+    private int signatures(String command, Options options) throws IOException, GeneralSecurityException {
+        Path keystore = Paths.get(options.required("--keystore"));
+        char[] password = options.required("--storepass").toCharArray();
+        String alias = options.value("--alias", null);
+        if (alias == null) {
+            alias = SignatureService.defaultAlias(keystore, password);
+        }
+        int threads = (int) options.longValue("--threads", Runtime.getRuntime().availableProcessors());
+        if (threads < 1) {
+            throw new UsageException("--threads must be positive");
+        }
+        List<Path> files = new ArrayList<>();
+        for (String in : options.positional()) {
+            files.add(Paths.get(in));
+        }
+        if (files.isEmpty()) {
+            throw new UsageException(command + " needs at least one input file");
+        }
+        long start = System.nanoTime();
+        Map<Path, SignatureService.Outcome> results;
+        try {
+            if (command.equals("sign")) {
+                results = SignatureService.signAll(keystore, password, alias, files, threads);
+            } else {
+                Map<Path, byte[]> signatures = new LinkedHashMap<>();
+                for (Path file : files) {
+                    signatures.put(file, Files.readAllBytes(signatureFile(file)));
+                }
+                results = SignatureService.verifyAll(keystore, password, alias, signatures, threads);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(command + " interrupted", e);
+        }
+        long failed = 0;
+        for (Map.Entry<Path, SignatureService.Outcome> result : results.entrySet()) {
+            SignatureService.Outcome outcome = result.getValue();
+            if (outcome.error != null) {
+                failed++;
+                System.out.println("ERROR  " + result.getKey() + " (" + outcome.error + ")");
+            } else if (outcome.signature != null) {
+                Files.write(signatureFile(result.getKey()), outcome.signature);
+            } else if (!outcome.valid) {
+                failed++;
+                System.out.println("INVALID  " + result.getKey());
+            }
+        }
+        log.printf("%s: %d files with %s key '%s' in %.3f s, %d failed%n", command, results.size(),
+                SignatureService.scheme(keystore, password, alias), alias, (System.nanoTime() - start) / 1e9, failed);
+        return failed == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+    private static Path signatureFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".sig");
+    }
+
+    // HMAC key bytes from --key-file, or the text of --key
+    private static byte[] secretKey(Options options) throws IOException {
+        String keyFile = options.value("--key-file", null);
+        if (keyFile != null) {
+            return Files.readAllBytes(Paths.get(keyFile));
+        }
+        return options.required("--key").getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Key of a keyed cipher: a passphrase from --passphrase-file (its first line) or --passphrase, else a raw key.
+    // In a batch, every job with the same passphrase reuses the key KeyManager derived for the first one.
+    private static CipherKey cipherKey(Options options) throws IOException {
+        String passphraseFile = options.value("--passphrase-file", null);
+        if (passphraseFile != null) {
+            byte[] bytes = Files.readAllBytes(Paths.get(passphraseFile));
+            CharBuffer text = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(bytes));
+            Arrays.fill(bytes, (byte) 0);
+            int length = 0;
+            while (length < text.limit() && text.get(length) != '\n' && text.get(length) != '\r') {
+                length++;
+            }
+            char[] passphrase = new char[length];
+            text.get(passphrase);
+            Arrays.fill(text.array(), '\0');
+            return CipherKey.passphrase(passphrase);
+        }
+        String passphrase = options.value("--passphrase", null);
+        if (passphrase != null) {
+            return CipherKey.passphrase(passphrase.toCharArray());
+        }
+        // a key file holds exactly the 32 raw key bytes, --key exactly 64 hex digits
+        String keyFile = options.value("--key-file", null);
+        if (keyFile != null) {
+            return CipherKey.raw(RecordCipher.rawKey(Files.readAllBytes(Paths.get(keyFile))));
+        }
+        String hex = options.required("--key");
+        if (!RecordCipher.isHexKey(hex)) {
+            throw new UsageException("--key must be a 256-bit key as 64 hex digits; use --key-file for raw key bytes"
+                    + " or --passphrase for text");
+        }
+        return CipherKey.raw(RecordCipher.hexKey(hex));
+    }
+
+    // Run every command line of a manifest, continuing past failures, and return the worst status
+    private int batch(Options options) throws IOException {
+        List<String> inputs = options.positional();
+        if (inputs.size() != 1) {
+            throw new UsageException("batch needs exactly one manifest file or -");
+        }
+        String manifest = inputs.get(0);
+        List<String> lines;
+        if (manifest.equals(STDIO)) {
+            lines = List.of(new String(System.in.readAllBytes(), StandardCharsets.UTF_8).split("\\R"));
+        } else {
+            lines = Files.readAllLines(Paths.get(manifest), StandardCharsets.UTF_8);
+        }
+        int status = EXIT_OK;
+        int jobs = 0;
+        int failed = 0;
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] args;
+            try {
+                args = manifestFields(trimmed);
+            } catch (UsageException e) {
+                log.println("Error: " + e.getMessage() + ": " + trimmed);
+                status = Math.max(status, EXIT_USAGE);
+                failed++;
+                continue;
+            }
+            if (args[0].equals("batch")) {
+                log.println("Error: nested batch manifests are not supported: " + trimmed);
+                status = Math.max(status, EXIT_USAGE);
+                failed++;
+                continue;
+            }
+            int result = run(args);
+            jobs++;
+            if (result != EXIT_OK) {
+                failed++;
+                status = Math.max(status, result);
+            }
+        }
+        log.println("Batch finished: " + jobs + " jobs, " + failed + " failed");
+        return status;
+    }
+
+    // Split a manifest line into fields at runs of spaces and tabs. A field in double or single quotes keeps its
+    // spaces and may contain the other kind of quote; backslashes are literal so Windows paths need no escaping.
+    static String[] manifestFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inField = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+                inField = true;
+            } else if (c == ' ' || c == '\t') {
+                if (inField) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    inField = false;
+                }
+            } else {
+                field.append(c);
+                inField = true;
+            }
+        }
+        if (quote != 0) {
+            throw new UsageException("unterminated " + quote + " quote");
+        }
+        if (inField) {
+            fields.add(field.toString());
+        }
+        return fields.toArray(new String[0]);
+    }
+
+    private static Output openOutput(String out) throws IOException {
+        if (out.equals(STDIO)) {
+            return new Output(null, Channels.newChannel(new StandardOutput()));
+        }
+        AtomicFile file = AtomicFile.create(Paths.get(out));
+        return new Output(file, file.channel());
+    }
+
+    // Refuse an output file that is also an input or the pad before anything is reserved, written or deleted
+    private static void checkOutput(String out, String... inputs) throws IOException {
+        if (out.equals(STDIO)) {
+            return;
+        }
+        for (String input : inputs) {
+            if (input != null && !input.equals(STDIO)) {
+                AtomicFile.checkNotInput(Paths.get(out), Paths.get(input));
+            }
+        }
+    }
+
+    // File system exceptions only carry the path as their message, so name the problem as well
+    private static String describe(Exception e) {
+        if (e instanceof NoSuchFileException) {
+            return "No such file: " + e.getMessage();
+        }
+        if (e instanceof FileAlreadyExistsException) {
+            return "File already exists: " + e.getMessage();
+        }
+        if (e instanceof AccessDeniedException) {
+            return "Access denied: " + e.getMessage();
+        }
+        if (e instanceof RuntimeException && !(e instanceof IllegalArgumentException || e instanceof IllegalStateException)) {
+            // not one of the expected failures, whose messages stand on their own; name its type as well
+            return e.toString();
+        }
+        return e.getMessage();
+    }
+
+    private void report(String what, long bytes, long startNanos) {
+        double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+        log.printf("%s: %d bytes in %.3f s (%.1f MB/s)%n", what, bytes, seconds, bytes / seconds / 1e6);
+    }
+
+    private void printUsage() {
+        log.println("Usage: java SecurityCLI <command> [options]");
+        log.println("  encrypt --in FILE|- --pad PADFILE [--pad-offset N] --out FILE|- [--threads N]");
+        log.println("  decrypt --in FILE|- --pad PADFILE --pad-offset N --out FILE|- [--threads N]   (N as printed by encrypt)");
+        log.println("  encrypt --cipher AES-256-GCM|ChaCha20-Poly1305 KEY --in FILE|- --out FILE|- [--threads N]");
+        log.println("  decrypt --cipher AES-256-GCM|ChaCha20-Poly1305 KEY --in FILE|- --out FILE|- [--threads N]");
+        log.println("      KEY: --key HEX | --key-file FILE | --passphrase TEXT | --passphrase-file FILE");
+        log.println("  pack --in FILE --out FILE (--pad PADFILE [--pad-offset N] | --cipher AES-256-GCM|ChaCha20-Poly1305 KEY)");
+        log.println("       [--chunk-size BYTES[K|M]] [--threads N]   (writes a self-describing encrypted container)");
+        log.println("  unpack --in FILE --out FILE|- (--pad PADFILE | KEY) [--offset BYTES[K|M|G]] [--length BYTES[K|M|G]] [--threads N]");
+        log.println("  inspect FILE ...   (prints the algorithm, pad, chunks and length of containers)");
+        log.println("  encrypt-tree --in DIR --pad PADFILE [--pad-offset N] --out DIR [--threads N] [--chunk-size BYTES] [--max-in-flight N]");
+        log.println("  decrypt-tree --in DIR --pad PADFILE --out DIR [--threads N] [--chunk-size BYTES] [--max-in-flight N]");
+        log.println("  genpad --size BYTES[K|M|G] --out PADFILE [--threads N]");
+        log.println("  hash [--alg SHA-256[,SHA-512,SHA3-256,CRC32C]] FILE|- ...");
+        log.println("  hmac (--key TEXT | --key-file FILE) [--alg HmacSHA256|HmacSHA512] FILE|- ...");
+        log.println("  hmac-verify (--key TEXT | --key-file FILE) [--alg HmacSHA256|HmacSHA512] --tags TAGFILE [--threads N]");
+        log.println("  sign --keystore FILE --storepass PASSWORD [--alias NAME] [--threads N] FILE ...     (writes FILE.sig)");
+        log.println("  verify-sig --keystore FILE --storepass PASSWORD [--alias NAME] [--threads N] FILE ... (reads FILE.sig)");
+        log.println("  batch MANIFEST|-   (one command per line, # starts a comment, \"quote\" fields with spaces)");
+        log.println("Any command: [--metrics-out FILE [--metrics-interval SECONDS]]   (writes operation metrics as JSON)");
+    }
+
+    // Where a command writes its result: stdout, or a temporary file that replaces the output file only on commit,
+    // so a command that fails, even before writing anything, leaves an existing output file as it was
+    private static final class Output implements Closeable {
+        private final AtomicFile file;
+        private final WritableByteChannel channel;
+
+        Output(AtomicFile file, WritableByteChannel channel) {
+            this.file = file;
+            this.channel = channel;
+        }
+
+        WritableByteChannel channel() {
+            return channel;
+        }
+
+        void commit() throws IOException {
+            if (file != null) {
+                file.commit();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (file != null) {
+                file.close();
+            } else {
+                channel.close();
+            }
+        }
+    }
+
+    // Stdout for binary output, written straight to file descriptor 1: System.out swallows write errors, this stream
+    // reports them (a closed pipe, a full disk). Closing it leaves stdout open, so later jobs in a batch can still print
+    private static final class StandardOutput extends FilterOutputStream {
+        StandardOutput() {
+            super(new FileOutputStream(FileDescriptor.out));
+            // anything already printed comes first
+            System.out.flush();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    // Thrown when the command line itself is wrong rather than the operation failing
+    static final class UsageException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        UsageException(String message) {
+            super(message);
+        }
+    }
+
+    // Minimal "--name value" option parser; anything else is a positional argument
+    static final class Options {
+        private final Map<String, String> named = new HashMap<>();
+        private final List<String> positional = new ArrayList<>();
+
+        Options(List<String> args) {
+            for (int i = 0; i < args.size(); i++) {
+                String arg = args.get(i);
+                if (arg.startsWith("--")) {
+                    if (i + 1 >= args.size()) {
+                        throw new UsageException("Missing value for " + arg);
+                    }
+                    named.put(arg, args.get(++i));
+                } else {
+                    positional.add(arg);
+                }
+            }
+        }
+
+        String required(String name) {
+            String value = named.get(name);
+            if (value == null) {
+                throw new UsageException("Missing required option " + name);
+            }
+            return value;
+        }
+
+        String value(String name, String defaultValue) {
+            return named.getOrDefault(name, defaultValue);
+        }
+
+        // A number that must be given
+        long longValue(String name) {
+            required(name);
+            return longValue(name, 0);
+        }
+
+        long longValue(String name, long defaultValue) {
+            String value = named.get(name);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw new UsageException(name + " must be a number: " + value);
+            }
+        }
+
+        // Byte count with an optional K, M or G suffix (powers of 1024)
+        long sizeValue(String name) {
+            String value = required(name).trim().toUpperCase();
+            long multiplier = 1;
+            if (value.endsWith("K") || value.endsWith("M") || value.endsWith("G")) {
+                multiplier = value.endsWith("K") ? 1L << 10 : value.endsWith("M") ? 1L << 20 : 1L << 30;
+                value = value.substring(0, value.length() - 1);
+            }
+            try {
+                return Math.multiplyExact(Long.parseLong(value), multiplier);
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new UsageException(name + " must be a size such as 4096, 512M or 2G: " + required(name));
+            }
+        }
+
+        List<String> positional() {
+            return positional;
+        }
+    }
+}
@@ -1,11 +1,22 @@
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 /**
  * SecurityGUI serves as the primary interface for the CSC 429 Computer Security Project.
@@ -21,14 +32,49 @@ public class SecurityOTP {
     // GUI components declarations
     private JTextArea plaintextArea;
     private JTextArea ciphertextArea;
+    // Large files and results are shown by viewers that only render the visible rows, in place of the text areas
+    private ContentViewer plaintextViewer;
+    private ContentViewer ciphertextViewer;
+    private JPanel plaintextPane;
+    private JPanel ciphertextPane;
+    private static final String TEXT_CARD = "text";
+    private static final String VIEWER_CARD = "viewer";
+    // Content larger than this is shown in a viewer instead of being loaded into a text area
+    private static final int VIEWER_THRESHOLD = 1024 * 1024;
     private JLabel algorithmDescriptionLabel;
     private JComboBox<String> algorithmComboBox;
+    // Ciphers offered in algorithmComboBox; each is only instantiated once it is used
+    private final CipherRegistry cipherRegistry = CipherRegistry.load();
     private JPanel keyPanel;
     private int keyFieldCount = 0;
     private static final int MAX_KEY_FIELDS = 2;
+    // What each key field holds: the first is the cipher key, the second a separate key for HMAC and signatures
+    private static final String[] KEY_FIELD_LABELS = {"Cipher key:", "HMAC key / keystore password:"};
     // GUI components for file operations
     private JButton openFileButton;
     private JButton saveFileButton;
+    private JButton encryptFileButton;
+    private JButton decryptFileButton;
+    // Raw bytes behind the text areas; cleared whenever the user edits the text by hand
+    private JComboBox<DisplayCodec> displayCodecComboBox;
+    // When ticked, the first key field is a passphrase that KeyManager stretches into the cipher key
+    private JCheckBox passphraseCheckBox;
+    private byte[] plaintextBytes;
+    private byte[] ciphertextBytes;
+    // Encryption result of a file shown in the viewer, kept in a temporary file instead of in memory; null otherwise
+    private Path ciphertextFile;
+    // File the plaintext was opened from, so it can be streamed from disk again while unedited
+    private Path openedFile;
+    // Keystore chosen for digital signatures; its keys are loaded once and cached by SignatureService
+    private Path keystoreFile;
+    // Progress of the operation running in the background, if any; only one runs at a time
+    private JProgressBar progressBar;
+    private JLabel progressLabel;
+    private JButton cancelButton;
+    private Timer progressTimer;
+    private OperationWorker<?> currentWorker;
+    // Bytes read from disk or written to the text per step, so long file reads and saves report progress
+    private static final int IO_CHUNK_SIZE = 8 * 1024 * 1024;
 
     // Constructor initializes the GUI components and builds the frame
     public SecurityOTP() {
@@ -50,9 +96,26 @@ public class SecurityOTP {
     private void initComponents() {
         plaintextArea = new JTextArea(10, 60);
         ciphertextArea = new JTextArea(10, 60);
+        plaintextArea.getDocument().addDocumentListener(onEdit(() -> {
+            plaintextBytes = null;
+            openedFile = null;
+        }));
+        ciphertextArea.getDocument().addDocumentListener(onEdit(() -> ciphertextBytes = null));
+        plaintextViewer = new ContentViewer(ContentViewer.Mode.TEXT);
+        ciphertextViewer = new ContentViewer(ContentViewer.Mode.HEX);
+        plaintextPane = createContentPane(plaintextArea, plaintextViewer);
+        ciphertextPane = createContentPane(ciphertextArea, ciphertextViewer);
+        displayCodecComboBox = new JComboBox<>(DisplayCodec.values());
+        displayCodecComboBox.addActionListener(e -> {
+            if (ciphertextBytes != null) {
+                showCiphertext(ciphertextBytes);
+            }
+        });
         
-        algorithmDescriptionLabel = new JLabel("Please Enter One Key that is the same length as your plaintext. ");
-        algorithmComboBox = new JComboBox<>(new String[]{" OTP "}); 
+        algorithmComboBox = new JComboBox<>(cipherRegistry.names().toArray(new String[0]));
+        algorithmDescriptionLabel = new JLabel();
+        algorithmComboBox.addActionListener(e -> describeSelectedCipher());
+        describeSelectedCipher();
         
         keyPanel = new JPanel();
         openFileButton = new JButton("Open File");
@@ -60,9 +123,30 @@ public class SecurityOTP {
 
         saveFileButton = new JButton("Save File");
         saveFileButton.addActionListener(this::saveFileAction);
+
+        encryptFileButton = new JButton("Encrypt File");
+        encryptFileButton.addActionListener(e -> fileAction("Encrypt"));
+
+        decryptFileButton = new JButton("Decrypt File");
+        decryptFileButton.addActionListener(e -> fileAction("Decrypt"));
         
         keyPanel = new JPanel();
         keyPanel.setLayout(new BoxLayout(keyPanel, BoxLayout.Y_AXIS));
+
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressLabel = new JLabel("Ready");
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> {
+            if (currentWorker != null) {
+                currentWorker.cancel(true);
+                cancelButton.setEnabled(false);
+                updateProgress();
+            }
+        });
+        // Refresh the bar and throughput a few times per second instead of on every chunk
+        progressTimer = new Timer(250, e -> updateProgress());
     }
 
     // Set up the main frame properties and add the primary panels
@@ -74,6 +158,7 @@ public class SecurityOTP {
         frame.add(createInputPanel());
         frame.add(createAlgorithmPanel());
         frame.add(createActionPanel());
+        frame.add(createProgressPanel());
 
         frame.pack();
         frame.setMinimumSize(new Dimension(950, 600));
@@ -81,16 +166,41 @@ public class SecurityOTP {
         frame.setVisible(true);
     }
 
+    // Show the description and key requirement of the cipher selected in the algorithm box
+    private void describeSelectedCipher() {
+        String name = (String) algorithmComboBox.getSelectedItem();
+        algorithmDescriptionLabel.setText(name == null ? "No ciphers are registered in META-INF/services/CipherProvider."
+                : cipherRegistry.description(name));
+    }
+
     // Set up the input panel containing plaintext and ciphertext fields
     private JPanel createInputPanel() {
         JPanel panel = new JPanel(new FlowLayout());
         panel.add(new JLabel("Plaintext:"));
-        panel.add(new JScrollPane(plaintextArea));
+        panel.add(plaintextPane);
         panel.add(new JLabel("Ciphertext:"));
-        panel.add(new JScrollPane(ciphertextArea));
+        panel.add(ciphertextPane);
         return panel;
     }
 
+    // A text area and a viewer sharing one place in the window; only one of them is shown at a time
+    private static JPanel createContentPane(JTextArea area, ContentViewer viewer) {
+        JPanel pane = new JPanel(new CardLayout());
+        pane.add(new JScrollPane(area), TEXT_CARD);
+        pane.add(viewer, VIEWER_CARD);
+        return pane;
+    }
+
+    // Switch a content pane to its text area or its viewer, emptying the one that is hidden
+    private static void showCard(JPanel pane, JTextArea area, ContentViewer viewer, boolean useViewer) {
+        ((CardLayout) pane.getLayout()).show(pane, useViewer ? VIEWER_CARD : TEXT_CARD);
+        if (useViewer) {
+            area.setText("");
+        } else {
+            viewer.clear();
+        }
+    }
+
     // Set up the algorithm panel containing algorithm selection and key input fields
     private JPanel createAlgorithmPanel() {
         JPanel panel = new JPanel();
@@ -100,10 +210,14 @@ public class SecurityOTP {
         JPanel upperPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
         upperPanel.add(algorithmDescriptionLabel);
         upperPanel.add(algorithmComboBox);
+        upperPanel.add(new JLabel("Ciphertext display:"));
+        upperPanel.add(displayCodecComboBox);
 
         JButton addKeyButton = new JButton("+");
         addKeyButton.addActionListener(e -> addKeyField());
         upperPanel.add(addKeyButton);
+        passphraseCheckBox = new JCheckBox("Passphrase");
+        upperPanel.add(passphraseCheckBox);
 
         // Adding the upper panel to the main panel with some space
         panel.add(upperPanel);
@@ -118,71 +232,245 @@ public class SecurityOTP {
 
     
     
-    // Utility method for OTP encryption
-    private String encryptWithOTP(String plaintext, String key) {
-        byte[] plaintextBytes = plaintext.getBytes();
-        byte[] keyBytes = key.getBytes();
-        byte[] cipherBytes = new byte[plaintextBytes.length];
+    // File shown by the plaintext viewer, which has not been loaded into memory; null when the text area is in use
+    private Path viewedPlaintextFile() {
+        return plaintextViewer.isVisible() ? openedFile : null;
+    }
+
+    // Bytes of the plaintext area, taken from the opened file when the text has not been edited since
+    private byte[] currentPlaintext() {
+        return plaintextBytes != null ? plaintextBytes : plaintextArea.getText().getBytes(StandardCharsets.UTF_8);
+    }
 
-        if (keyBytes.length < plaintextBytes.length) {
-            showError("Key must be at least as long as plaintext for OTP encryption!");
-            return "";
+    // Bytes of the ciphertext area, decoded with the selected display codec unless the raw result is still current
+    private byte[] currentCiphertext() {
+        if (ciphertextBytes != null) {
+            return ciphertextBytes;
         }
+        return ((DisplayCodec) displayCodecComboBox.getSelectedItem()).decode(ciphertextArea.getText());
+    }
 
-        for (int i = 0; i < plaintextBytes.length; i++) {
-            cipherBytes[i] = (byte) (plaintextBytes[i] ^ keyBytes[i]);
+    // Show raw plaintext bytes as UTF-8 text while keeping the exact bytes for the next operation
+    private void showPlaintext(byte[] data) {
+        boolean large = data.length > VIEWER_THRESHOLD;
+        showCard(plaintextPane, plaintextArea, plaintextViewer, large);
+        if (large) {
+            plaintextViewer.show(data);
+        } else {
+            plaintextArea.setText(new String(data, StandardCharsets.UTF_8));
         }
-        return new String(cipherBytes);
+        plaintextBytes = data;
+        openedFile = null;
     }
 
-    // Utility method for OTP decryption
-    private String decryptWithOTP(String ciphertext, String key) {
-        return encryptWithOTP(ciphertext, key);
+    // Show a large file in the plaintext viewer without reading it; operations stream it from disk
+    private void showPlaintext(Path file) throws IOException {
+        showCard(plaintextPane, plaintextArea, plaintextViewer, true);
+        plaintextViewer.show(file);
+        plaintextBytes = null;
+        openedFile = file;
+    }
+
+    // Show raw ciphertext bytes through the selected display codec while keeping the exact bytes
+    private void showCiphertext(byte[] data) {
+        boolean large = data.length > VIEWER_THRESHOLD;
+        showCard(ciphertextPane, ciphertextArea, ciphertextViewer, large);
+        if (large) {
+            ciphertextViewer.show(data);
+        } else {
+            ciphertextArea.setText(((DisplayCodec) displayCodecComboBox.getSelectedItem()).encode(data));
+        }
+        ciphertextBytes = data;
+        ciphertextFile = null;
+    }
+
+    // Show ciphertext that was streamed into a file in the viewer without reading it; Decrypt and Save stream it too
+    private void showCiphertext(Path file) {
+        try {
+            showCard(ciphertextPane, ciphertextArea, ciphertextViewer, true);
+            ciphertextViewer.show(file);
+            ciphertextBytes = null;
+            ciphertextFile = file;
+        } catch (IOException e) {
+            showError("Error showing the ciphertext: " + e.getMessage());
+        }
+    }
+
+    // Show a textual result such as a digest or a status message in the ciphertext area
+    private void showResult(String text) {
+        showCard(ciphertextPane, ciphertextArea, ciphertextViewer, false);
+        ciphertextArea.setText(text);
+        ciphertextFile = null;
+    }
+
+    // Document listener that runs the given action on any change to the text
+    private static DocumentListener onEdit(Runnable action) {
+        return new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                action.run();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                action.run();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        };
+    }
+
+    // Set up the progress panel showing the running operation, its throughput and a cancel button
+    private JPanel createProgressPanel() {
+        JPanel panel = new JPanel(new FlowLayout());
+        panel.add(progressBar);
+        panel.add(progressLabel);
+        panel.add(cancelButton);
+        return panel;
+    }
+
+    // Run a job off the Event Dispatch Thread with progress and cancellation; callbacks run back on the EDT
+    private <T> void runInBackground(String name, long totalBytes, OperationWorker.Job<T> job, Consumer<T> onSuccess,
+                                     Consumer<Throwable> onFailure) {
+        if (currentWorker != null) {
+            showError("\"" + currentWorker.name() + "\" is still running. Wait for it to finish or cancel it first.");
+            return;
+        }
+        OperationWorker<T> worker = new OperationWorker<>(name, totalBytes, job, onSuccess, onFailure, this::operationFinished);
+        currentWorker = worker;
+        progressBar.setIndeterminate(totalBytes <= 0);
+        progressBar.setValue(0);
+        cancelButton.setEnabled(true);
+        updateProgress();
+        progressTimer.start();
+        worker.execute();
+    }
+
+    // Show how far the running operation has come and how fast it is going
+    private void updateProgress() {
+        OperationWorker<?> worker = currentWorker;
+        if (worker == null) {
+            return;
+        }
+        if (!progressBar.isIndeterminate()) {
+            progressBar.setValue(worker.getProgress());
+        }
+        if (worker.isStopping()) {
+            progressLabel.setText("Cancelling " + worker.name() + " after " + megabytes(worker.processedBytes()) + "...");
+            return;
+        }
+        progressLabel.setText(worker.name() + ": " + megabytes(worker.processedBytes())
+                + (worker.totalBytes() > 0 ? " of " + megabytes(worker.totalBytes()) : "")
+                + String.format(" at %.1f MB/s", worker.throughput() / (1024 * 1024)));
+    }
+
+    // Called on the EDT once the running operation has succeeded, failed or been cancelled and its background job
+    // has returned, so a cancelled job can no longer be writing when the next operation starts
+    private void operationFinished() {
+        OperationWorker<?> worker = currentWorker;
+        updateProgress();
+        progressTimer.stop();
+        progressBar.setIndeterminate(false);
+        cancelButton.setEnabled(false);
+        if (worker.isCancelled()) {
+            progressLabel.setText(worker.name() + " cancelled after " + megabytes(worker.processedBytes()));
+        } else {
+            progressBar.setValue(100);
+        }
+        currentWorker = null;
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
     }
 
-    
-    
     // Set up the action panel containing primary application controls
     private JPanel createActionPanel() {
         JPanel panel = new JPanel(new FlowLayout());
 
         JButton encryptButton = new JButton("Encrypt");
         encryptButton.addActionListener(e -> {
-            String plaintext = plaintextArea.getText();
-            String[] keys = getKeysFromFields();
-            if (keys.length > 0 && keys[0].length() == plaintext.length()) {
-                String key = keys[0];
-                String ciphertext = encryptWithOTP(plaintext, key);
-                ciphertextArea.setText(ciphertext);
-            } else {
-                showError("Key must be provided and match the length of the plaintext for OTP encryption.");
+            Path file = viewedPlaintextFile();
+            byte[] plaintext = file == null ? currentPlaintext() : null;
+            long length = file != null ? file.toFile().length() : plaintext.length;
+            String algorithm = (String) algorithmComboBox.getSelectedItem();
+            CipherKey key = cipherKeyFromFields(algorithm);
+            if (key == null) {
+                showError("Select a cipher and provide its key.");
+                return;
             }
+            if (file != null) {
+                // a file too large for the text area is streamed through the cipher into a temporary file
+                runInBackground("Encrypt", length, progress -> {
+                    CipherProvider cipher = cipherRegistry.get(algorithm);
+                    cipher.checkKey(key, length);
+                    return streamToTemporaryFile(".enc", out -> cipher.encryptFile(file, out,
+                            key, Runtime.getRuntime().availableProcessors(), progress));
+                }, this::showCiphertext, ex -> showError("Error encrypting: " + ex.getMessage()));
+                return;
+            }
+            runInBackground("Encrypt", length, progress -> {
+                CipherProvider cipher = cipherRegistry.get(algorithm);
+                cipher.checkKey(key, length);
+                return cipher.encrypt(plaintext, key);
+            }, this::showCiphertext, ex -> showError("Error encrypting: " + ex.getMessage()));
         });
         
         JButton decryptButton = new JButton("Decrypt");
         decryptButton.addActionListener(e -> {
-            String ciphertext = ciphertextArea.getText();
-            String[] keys = getKeysFromFields();
-            if (keys.length > 0 && keys[0].length() == ciphertext.length()) {
-                String key = keys[0];
-                String plaintext = decryptWithOTP(ciphertext, key);
-                plaintextArea.setText(plaintext);
-            } else {
-                showError("Key must be provided and match the length of the ciphertext for OTP decryption.");
+            Path file = ciphertextFile;
+            if (file != null) {
+                String algorithm = (String) algorithmComboBox.getSelectedItem();
+                CipherKey key = cipherKeyFromFields(algorithm);
+                if (key == null) {
+                    showError("Select a cipher and provide its key.");
+                    return;
+                }
+                long length = file.toFile().length();
+                runInBackground("Decrypt", length, progress -> {
+                    CipherProvider cipher = cipherRegistry.get(algorithm);
+                    cipher.checkKey(key, length);
+                    return streamToTemporaryFile(".dec", out -> cipher.decryptFile(file, out,
+                            key, Runtime.getRuntime().availableProcessors(), progress));
+                }, decrypted -> {
+                    try {
+                        showPlaintext(decrypted);
+                    } catch (IOException ex) {
+                        showError("Error showing the plaintext: " + ex.getMessage());
+                    }
+                }, ex -> showError("Error decrypting: " + ex.getMessage()));
+                return;
             }
+            byte[] ciphertext;
+            try {
+                ciphertext = currentCiphertext();
+            } catch (IllegalArgumentException ex) {
+                showError("Ciphertext is not valid " + displayCodecComboBox.getSelectedItem() + ": " + ex.getMessage());
+                return;
+            }
+            String algorithm = (String) algorithmComboBox.getSelectedItem();
+            CipherKey key = cipherKeyFromFields(algorithm);
+            if (key == null) {
+                showError("Select a cipher and provide its key.");
+                return;
+            }
+            runInBackground("Decrypt", ciphertext.length, progress -> {
+                CipherProvider cipher = cipherRegistry.get(algorithm);
+                cipher.checkKey(key, ciphertext.length);
+                return cipher.decrypt(ciphertext, key);
+            }, this::showPlaintext, ex -> showError("Error decrypting: " + ex.getMessage()));
         });
         
         JButton hashButton = new JButton("Hash");
-        // TODO: Replace placeholder action listener with actual hashing function
-        hashButton.addActionListener(e -> ciphertextArea.setText("Hashed text would be here.")); // Placeholder function
+        hashButton.addActionListener(e -> hashAction());
 
         JButton hmacButton = new JButton("HMAC");
-        // TODO: Replace placeholder action listener with actual HMAC function
-        hmacButton.addActionListener(e -> ciphertextArea.setText("HMAC result would be here.")); // Placeholder function
+        hmacButton.addActionListener(e -> hmacAction());
 
         JButton signatureButton = new JButton("Digital Signature");
-        // TODO: Replace placeholder action listener with actual digital signature function
-        signatureButton.addActionListener(e -> ciphertextArea.setText("Digital signature would be here.")); // Placeholder function
+        signatureButton.addActionListener(e -> signatureAction());
 
         panel.add(encryptButton);
         panel.add(decryptButton);
@@ -192,6 +480,8 @@ public class SecurityOTP {
 
         panel.add(openFileButton);
         panel.add(saveFileButton);
+        panel.add(encryptFileButton);
+        panel.add(decryptFileButton);
 
         return panel;
     }
@@ -199,9 +489,12 @@ public class SecurityOTP {
     // Adds a new key input field to the keyPanel
     private void addKeyField() {
         if (keyFieldCount < MAX_KEY_FIELDS) {
+            JLabel label = new JLabel(KEY_FIELD_LABELS[keyFieldCount]);
+            label.setAlignmentX(Component.CENTER_ALIGNMENT);
             JTextField newKeyField = new JTextField();
             newKeyField.setMaximumSize(new Dimension(Integer.MAX_VALUE, newKeyField.getPreferredSize().height));
             newKeyField.setAlignmentX(Component.CENTER_ALIGNMENT);
+            keyPanel.add(label);
             keyPanel.add(newKeyField);
             keyPanel.revalidate();
             keyPanel.repaint();
@@ -211,18 +504,114 @@ public class SecurityOTP {
         }
     }
 
+    // Hash the opened file straight from disk (or the plaintext text) with every default algorithm in one pass
+    private void hashAction() {
+        Path file = openedFile;
+        byte[] plaintext = file == null ? currentPlaintext() : null;
+        runInBackground("Hash", file != null ? file.toFile().length() : plaintext.length,
+                progress -> DigestEngine.describe(file != null
+                        ? DigestEngine.digest(file, DigestEngine.DEFAULT_ALGORITHMS, progress)
+                        : DigestEngine.digest(plaintext, DigestEngine.DEFAULT_ALGORITHMS)),
+                this::showResult, ex -> showError("Error computing hash: " + ex.getMessage()));
+    }
+
+    // HMAC-SHA256 and HMAC-SHA512 of the opened file (or the plaintext text), keyed with the second key field
+    private void hmacAction() {
+        String secondKey = secondKeyFromFields("the HMAC key");
+        if (secondKey == null) {
+            return;
+        }
+        byte[] key = secondKey.getBytes(StandardCharsets.UTF_8);
+        String[] algorithms = {HmacService.HMAC_SHA256, HmacService.HMAC_SHA512};
+        Path file = openedFile;
+        byte[] plaintext = file == null ? currentPlaintext() : null;
+        long length = file != null ? file.toFile().length() : plaintext.length;
+        runInBackground("HMAC", length * algorithms.length, progress -> {
+            StringBuilder tags = new StringBuilder();
+            for (String algorithm : algorithms) {
+                byte[] tag = file != null
+                        ? HmacService.tag(algorithm, key, file, progress)
+                        : HmacService.tag(algorithm, key, plaintext);
+                tags.append(tags.length() > 0 ? "\n" : "").append(algorithm).append(": ").append(DigestEngine.toHex(tag));
+            }
+            return tags.toString();
+        }, this::showResult, ex -> showError("Error computing HMAC: " + ex.getMessage()));
+    }
+
+    // Sign the opened file (or the plaintext text) with the first private key of a keystore; the second key field
+    // holds its password
+    private void signatureAction() {
+        String secondKey = secondKeyFromFields("the keystore password");
+        if (secondKey == null) {
+            return;
+        }
+        if (keystoreFile == null) {
+            File chosen = chooseFile("Select the keystore (PKCS12/JKS) holding your signing key", false);
+            if (chosen == null) {
+                return;
+            }
+            keystoreFile = chosen.toPath();
+        }
+        char[] password = secondKey.toCharArray();
+        Path keystore = keystoreFile;
+        Path file = openedFile;
+        byte[] plaintext = file == null ? currentPlaintext() : null;
+        runInBackground("Digital Signature", file != null ? file.toFile().length() : plaintext.length, progress -> {
+            String alias = SignatureService.defaultAlias(keystore, password);
+            byte[] signature = file != null
+                    ? SignatureService.sign(keystore, password, alias, file, progress)
+                    : SignatureService.sign(keystore, password, alias, plaintext);
+            return SignatureService.scheme(keystore, password, alias) + " signature (" + alias + "): "
+                    + DigestEngine.toHex(signature);
+        }, this::showResult, ex -> {
+            keystoreFile = null;
+            showError("Error creating digital signature: " + ex.getMessage());
+        });
+    }
+
     // Action method for opening files
     private void openFileAction(ActionEvent e) {
         JFileChooser fileChooser = new JFileChooser();
         int returnVal = fileChooser.showOpenDialog(null);
         if (returnVal == JFileChooser.APPROVE_OPTION) {
-            File file = fileChooser.getSelectedFile();
-            try {
-                String content = new String(Files.readAllBytes(Paths.get(file.getPath())));
-                plaintextArea.setText(content);
-            } catch (Exception ex) {
-                showError("Error reading file: " + ex.getMessage());
+            Path file = fileChooser.getSelectedFile().toPath();
+            if (file.toFile().length() > VIEWER_THRESHOLD) {
+                try {
+                    showPlaintext(file);
+                } catch (IOException ex) {
+                    showError("Error reading file: " + ex.getMessage());
+                }
+                return;
             }
+            runInBackground("Open File", file.toFile().length(), progress -> readFile(file, progress), data -> {
+                showPlaintext(data);
+                openedFile = file;
+            }, ex -> showError("Error reading file: " + ex.getMessage()));
+        }
+    }
+
+    // Read a whole file into memory a chunk at a time, so a large file reports progress and can be cancelled
+    private static byte[] readFile(Path file, Progress progress) throws IOException {
+        try (Metrics.Span span = Metrics.start("file.read");
+             FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File is too large to open in the text area; use Encrypt File instead.");
+            }
+            byte[] data = new byte[(int) size];
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                buffer.limit(Math.min(data.length, buffer.position() + IO_CHUNK_SIZE));
+                int start = buffer.position();
+                while (buffer.hasRemaining()) {
+                    if (in.read(buffer) < 0) {
+                        throw new IOException("File " + file + " shrank while it was being read.");
+                    }
+                }
+                progress.advance(buffer.position() - start);
+            }
+            span.completed(data.length);
+            return data;
         }
     }
 
@@ -236,13 +625,284 @@ public class SecurityOTP {
             if (!fileToSave.getName().contains(".")) {
                 fileToSave = new File(fileToSave.toString() + ".txt");
             }
-            try (FileWriter fileWriter = new FileWriter(fileToSave)) {
-                fileWriter.write(ciphertextArea.getText());
-            } catch (IOException ex) {
-                showError("Error saving file: " + ex.getMessage());
+            Path target = fileToSave.toPath();
+            Path source = ciphertextFile;
+            if (source != null) {
+                runInBackground("Save File", source.toFile().length(), progress -> {
+                    copyFile(source, target, progress);
+                    return target;
+                }, saved -> {
+                }, ex -> showError("Error saving file: " + ex.getMessage()));
+                return;
+            }
+            byte[] data = ciphertextBytes;
+            if (data != null) {
+                // an encryption result is saved as its raw bytes, not as its Hex or Base64 display
+                runInBackground("Save File", data.length, progress -> {
+                    writeFile(target, data, progress);
+                    return target;
+                }, saved -> {
+                }, ex -> showError("Error saving file: " + ex.getMessage()));
+                return;
+            }
+            Document document = ciphertextArea.getDocument();
+            runInBackground("Save File", document.getLength(), progress -> {
+                writeFile(target, document, progress);
+                return target;
+            }, saved -> {
+            }, ex -> showError("Error saving file: " + ex.getMessage()));
+        }
+    }
+
+    // Replace a file with raw bytes a chunk at a time; a failed or cancelled save leaves the old file as it was
+    private static void writeFile(Path target, byte[] data, Progress progress) throws IOException {
+        try (Metrics.Span span = Metrics.start("file.write");
+             AtomicFile out = AtomicFile.create(target)) {
+            for (int start = 0; start < data.length; start += IO_CHUNK_SIZE) {
+                int length = Math.min(IO_CHUNK_SIZE, data.length - start);
+                out.write(ByteBuffer.wrap(data, start, length));
+                progress.advance(length);
+            }
+            out.commit();
+            span.completed(data.length);
+        }
+    }
+
+    // Replace a file with a copy of another, a chunk at a time
+    private static void copyFile(Path source, Path target, Progress progress) throws IOException {
+        try (Metrics.Span span = Metrics.start("file.write");
+             FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             AtomicFile out = AtomicFile.createOutput(target, source)) {
+            long size = in.size();
+            for (long position = 0; position < size; ) {
+                long copied = in.transferTo(position, Math.min(IO_CHUNK_SIZE, size - position), out.channel());
+                if (copied <= 0) {
+                    throw new IOException("File " + source + " shrank while it was being copied.");
+                }
+                position += copied;
+                progress.advance(copied);
+            }
+            out.commit();
+            span.completed(size);
+        }
+    }
+
+    // Run a file-to-file operation into a new temporary file, deleted when the program exits, and return that file.
+    // The file is deleted at once if the operation fails
+    private static Path streamToTemporaryFile(String suffix, FileOperation operation)
+            throws IOException, GeneralSecurityException {
+        Path out = Files.createTempFile("csc429-", suffix);
+        out.toFile().deleteOnExit();
+        try {
+            operation.run(out);
+            return out;
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            Files.deleteIfExists(out);
+            throw e;
+        }
+    }
+
+    // A streaming engine call that writes its result to the given file
+    private interface FileOperation {
+        void run(Path output) throws IOException, GeneralSecurityException;
+    }
+
+    // Replace a file with the text of a document as UTF-8, encoding it straight from the document a chunk at a time
+    private static void writeFile(Path target, Document document, Progress progress) throws IOException {
+        try (Metrics.Span span = Metrics.start("file.write");
+             AtomicFile out = AtomicFile.create(target)) {
+            IOException[] failure = new IOException[1];
+            // render holds the document's read lock, so the text cannot change halfway through the save
+            document.render(() -> {
+                Segment chunk = new Segment();
+                chunk.setPartialReturn(true);
+                try {
+                    for (int start = 0; start < document.getLength(); start += chunk.count) {
+                        document.getText(start, Math.min(IO_CHUNK_SIZE, document.getLength() - start), chunk);
+                        if (chunk.count > 1 && Character.isHighSurrogate(chunk.array[chunk.offset + chunk.count - 1])
+                                && start + chunk.count < document.getLength()) {
+                            // keep a surrogate pair together in the next chunk
+                            chunk.count--;
+                        }
+                        out.write(chunk.array, chunk.offset, chunk.count);
+                        progress.advance(chunk.count);
+                    }
+                } catch (BadLocationException e) {
+                    throw new IllegalStateException(e);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            out.commit();
+            span.completed(document.getLength());
+        }
+    }
+    
+    // Action method for file-to-file encryption with the selected cipher; the One-Time Pad takes its key from a pad file
+    private void fileAction(String operation) {
+        String algorithm = (String) algorithmComboBox.getSelectedItem();
+        if (algorithm == null) {
+            showError("Select a cipher first.");
+            return;
+        }
+        if (cipherRegistry.get(algorithm) instanceof OTPCipherProvider) {
+            otpFileAction(operation);
+        } else {
+            cipherFileAction(operation, algorithm);
+        }
+    }
+
+    // Action method for file-to-file encryption with a keyed cipher, streaming both files on every core
+    private void cipherFileAction(String operation, String algorithm) {
+        CipherKey key = cipherKeyFromFields(algorithm);
+        if (key == null) {
+            showError("The key must be provided in a key field.");
+            return;
+        }
+        File input = chooseFile(operation + ": select the input file", false);
+        if (input == null) {
+            return;
+        }
+        File output = chooseFile(operation + ": specify the output file", true);
+        if (output == null) {
+            return;
+        }
+        Path in = input.toPath();
+        Path out = output.toPath();
+        long length = input.length();
+        runInBackground(operation + " File", length, progress -> {
+            AtomicFile.checkNotInput(out, in);
+            CipherProvider cipher = cipherRegistry.get(algorithm);
+            cipher.checkKey(key, length);
+            int threads = Runtime.getRuntime().availableProcessors();
+            // the engines only replace the output once the result is complete and verified, so a failed or
+            // cancelled job leaves neither a partial nor an unauthenticated result, and keeps any previous file
+            if (operation.equals("Decrypt") && EncryptedContainer.isContainer(in)) {
+                // a container names its own algorithm, whichever cipher is selected
+                try (EncryptedContainer container = EncryptedContainer.open(in)) {
+                    long bytes = container.unlock(key).decryptTo(out, threads, progress);
+                    return "Decrypted " + bytes + " bytes into " + out + " with " + container.algorithm();
+                }
+            }
+            if (operation.equals("Encrypt")) {
+                long bytes = cipher.encryptFile(in, out, key, threads, progress);
+                return "Encrypted " + bytes + " bytes into " + out + " with " + algorithm;
             }
+            long bytes = cipher.decryptFile(in, out, key, threads, progress);
+            return "Decrypted " + bytes + " bytes into " + out + " with " + decryptedAlgorithm(cipher, algorithm, in);
+        }, this::showResult, ex -> showError("Error processing file: " + ex.getMessage()));
+    }
+
+    // The algorithm that decrypted a file: the one named in its header for record ciphers, else the selected one
+    private static String decryptedAlgorithm(CipherProvider cipher, String selected, Path in)
+            throws IOException, GeneralSecurityException {
+        if (!(cipher instanceof RecordCipherProvider)) {
+            return selected;
+        }
+        try (FileChannel channel = FileChannel.open(in, StandardOpenOption.READ)) {
+            return RecordCipher.algorithm(channel).toString();
         }
     }
+
+    // Action method for file-to-file OTP, streaming the input and pad without loading them into the text areas.
+    // Encryption writes an EncryptedContainer, which records the pad and offset so decryption only asks for the pad.
+    private void otpFileAction(String operation) {
+        File input = chooseFile(operation + ": select the input file", false);
+        if (input == null) {
+            return;
+        }
+        boolean container;
+        try {
+            container = operation.equals("Decrypt") && EncryptedContainer.isContainer(input.toPath());
+        } catch (IOException ex) {
+            showError("Error reading file: " + ex.getMessage());
+            return;
+        }
+        File pad;
+        int generate = operation.equals("Encrypt")
+                ? JOptionPane.showConfirmDialog(null, "Generate a new random pad for this file?", "Key Pad",
+                        JOptionPane.YES_NO_CANCEL_OPTION)
+                : JOptionPane.NO_OPTION;
+        if (generate == JOptionPane.YES_OPTION) {
+            pad = chooseFile("Encrypt: specify where to save the new pad (keep it to decrypt)", true);
+        } else if (generate == JOptionPane.NO_OPTION) {
+            pad = chooseFile(operation + ": select the key pad file", false);
+        } else {
+            return;
+        }
+        if (pad == null) {
+            return;
+        }
+        File output = chooseFile(operation + ": specify the output file", true);
+        if (output == null) {
+            return;
+        }
+        long decryptOffset = 0;
+        if (operation.equals("Decrypt") && !container) {
+            // raw XOR output from before containers does not say which pad range it used, so never suggest one
+            String offset = JOptionPane.showInputDialog(null, "Pad offset used for encryption:");
+            if (offset == null) {
+                return;
+            }
+            if (offset.isBlank()) {
+                showError("Enter the pad offset that was used for encryption; this file does not record it.");
+                return;
+            }
+            try {
+                decryptOffset = Long.parseLong(offset.trim());
+            } catch (NumberFormatException ex) {
+                showError("Pad offset must be a number: " + offset);
+                return;
+            }
+        }
+        Path in = input.toPath();
+        Path key = pad.toPath();
+        Path out = output.toPath();
+        long length = input.length();
+        long padOffsetForDecrypt = decryptOffset;
+        boolean newPad = generate == JOptionPane.YES_OPTION;
+        long padBytes = EncryptedContainer.padBytes(length);
+        // a new pad also holds the bytes that identify it, which its ledger never hands out
+        long newPadLength = PadLedger.ID_LENGTH + padBytes;
+        runInBackground(operation + " File", newPad ? newPadLength + length : length, progress -> {
+            AtomicFile.checkNotInput(out, in, key);
+            int threads = Runtime.getRuntime().availableProcessors();
+            if (newPad) {
+                PadGenerator.generate(key, newPadLength, threads, progress);
+            }
+            // the output is only replaced once complete, so a failed or cancelled job keeps any previous file
+            if (operation.equals("Encrypt")) {
+                // encryption takes the next unused range of the pad so no pad byte is ever used twice
+                long padOffset = PadLedger.forPad(key).reserveNext(padBytes);
+                long bytes = EncryptedContainer.encrypt(key, padOffset, EncryptedContainer.DEFAULT_CHUNK_SIZE, in, out,
+                        threads, progress);
+                return "Encrypted " + bytes + " bytes into " + out + " using pad bytes " + padOffset + " to "
+                        + (padOffset + padBytes) + " of " + key.getFileName();
+            }
+            if (container) {
+                try (EncryptedContainer encrypted = EncryptedContainer.open(in)) {
+                    long bytes = encrypted.unlock(key).decryptTo(out, threads, progress);
+                    return "Decrypted " + bytes + " bytes into " + out + " using pad bytes " + encrypted.padOffset()
+                            + " to " + (encrypted.padOffset() + EncryptedContainer.padBytes(bytes)) + " of "
+                            + key.getFileName();
+                }
+            }
+            long bytes = ParallelOTP.decryptFile(in, key, padOffsetForDecrypt, out, ForkJoinPool.commonPool(), progress);
+            return "Decrypted " + bytes + " bytes into " + out + " using pad bytes " + padOffsetForDecrypt + " to "
+                    + (padOffsetForDecrypt + bytes) + " of " + key.getFileName();
+        }, this::showResult, ex -> showError("Error processing file: " + ex.getMessage()));
+    }
+
+    // Show an open or save dialog with the given title, returning null if the user cancels
+    private File chooseFile(String title, boolean save) {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle(title);
+        int returnVal = save ? fileChooser.showSaveDialog(null) : fileChooser.showOpenDialog(null);
+        return returnVal == JFileChooser.APPROVE_OPTION ? fileChooser.getSelectedFile() : null;
+    }
     
     // Retrieve keys from text fields as an array of Strings
     private String[] getKeysFromFields() {
@@ -257,6 +917,34 @@ public class SecurityOTP {
         return keys;
     }
 
+    // The text of the second key field, which holds the HMAC key or keystore password, or null after telling the user.
+    // It is never the cipher key: with only the first field present the action is refused instead
+    private String secondKeyFromFields(String purpose) {
+        String[] keys = getKeysFromFields();
+        if (keys.length < 2) {
+            showError("Add a second key field with '+' for " + purpose + "; the first key field is the cipher key.");
+            return null;
+        }
+        if (keys[1].isEmpty()) {
+            showError("Enter " + purpose + " in the second key field.");
+            return null;
+        }
+        return keys[1];
+    }
+
+    // The key for the algorithm typed into the first key field, or null if there is none. With 'Passphrase' ticked
+    // it is always a passphrase; otherwise the cipher decides, so AEAD ciphers only take 64 hex digits as a raw key.
+    // Ciphers that derive keys from a passphrase leave the stretching and its caching to KeyManager.
+    private CipherKey cipherKeyFromFields(String algorithm) {
+        String[] keys = getKeysFromFields();
+        if (algorithm == null || keys.length == 0 || keys[0].isEmpty()) {
+            return null;
+        }
+        return passphraseCheckBox.isSelected()
+                ? CipherKey.passphrase(keys[0].toCharArray())
+                : cipherRegistry.get(algorithm).keyFromText(keys[0]);
+    }
+
     // Utility function to display error messages
     private void showError(String message) {
         JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.ERROR_MESSAGE);
@@ -0,0 +1,157 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * BatchPipelineTest encrypts a small nested tree in chunks much smaller than its files and checks that it
+ * decrypts back unchanged, that the pad ledger gives every encryption a fresh range, and that a file which no
+ * longer matches the index fails on its own without leaving a partial or temporary output behind.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+class BatchPipelineTest {
+
+    private static final int PAD_LENGTH = 64 * 1024;
+    private static final String TRUNCATED = "sub/b.bin";
+    private static final String KEPT = "sub/deeper/d.bin";
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(5);
+    // chunks of 100 bytes with only three in flight, so every non-empty file is split and the buffers are reused
+    private final BatchPipeline pipeline = new BatchPipeline(2, 100, 3);
+    private final Map<String, byte[]> files = new LinkedHashMap<>();
+    private Path tree;
+    private Path pad;
+
+    @BeforeEach
+    void writeTree() throws IOException {
+        files.put("a.txt", randomBytes(1000));
+        files.put(TRUNCATED, randomBytes(250));
+        files.put("sub/deeper/c.bin", new byte[0]);
+        files.put(KEPT, randomBytes(1));
+        tree = directory.resolve("plain");
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            Path path = tree.resolve(file.getKey());
+            Files.createDirectories(path.getParent());
+            Files.write(path, file.getValue());
+        }
+        pad = Files.write(directory.resolve("key.pad"), randomBytes(PAD_LENGTH));
+    }
+
+    @Test
+    void treesRoundTrip() throws IOException {
+        Path encrypted = directory.resolve("encrypted");
+        BatchPipeline.Report report = pipeline.encryptTree(tree, pad, encrypted);
+        assertEquals(0, report.failures(), report.toString());
+        assertEquals(files.size(), report.files.size());
+        assertEquals(1251, report.totalBytes());
+        assertTrue(Files.exists(encrypted.resolve(BatchPipeline.INDEX_FILE)));
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            byte[] ciphertext = Files.readAllBytes(encrypted.resolve(file.getKey()));
+            assertEquals(file.getValue().length, ciphertext.length, file.getKey());
+        }
+        assertFalse(Arrays.equals(files.get("a.txt"), Files.readAllBytes(encrypted.resolve("a.txt"))));
+
+        Path decrypted = directory.resolve("decrypted");
+        report = pipeline.decryptTree(encrypted, pad, decrypted);
+        assertEquals(0, report.failures(), report.toString());
+        assertTreeEquals(files, decrypted);
+    }
+
+    @Test
+    void everyEncryptionTakesANewPadRange() throws IOException {
+        Path first = directory.resolve("first");
+        Path second = directory.resolve("second");
+        pipeline.encryptTree(tree, pad, first);
+        pipeline.encryptTree(tree, pad, second);
+        List<String> firstIndex = Files.readAllLines(first.resolve(BatchPipeline.INDEX_FILE));
+        List<String> secondIndex = Files.readAllLines(second.resolve(BatchPipeline.INDEX_FILE));
+        assertTrue(firstIndex.get(0).startsWith(PadLedger.ID_LENGTH + "\t"), firstIndex.get(0));
+        assertTrue(secondIndex.get(0).startsWith((PadLedger.ID_LENGTH + 1251) + "\t"), secondIndex.get(0));
+        assertFalse(Arrays.equals(readTree(first).get("a.txt"), readTree(second).get("a.txt")));
+        assertEquals(PadLedger.ID_LENGTH + 2 * 1251, PadLedger.forPad(pad).nextFree());
+    }
+
+    @Test
+    void changedFilesFailAloneAndLeaveNoPartialOutput() throws IOException {
+        Path encrypted = directory.resolve("encrypted");
+        pipeline.encryptTree(tree, pad, encrypted);
+        truncate(encrypted.resolve(TRUNCATED), 120);
+        truncate(encrypted.resolve(KEPT), 0);
+        Path decrypted = directory.resolve("decrypted");
+        Path kept = Files.createDirectories(decrypted.resolve("sub/deeper")).resolve("d.bin");
+        Files.writeString(kept, "keep me");
+
+        BatchPipeline.Report report = pipeline.decryptTree(encrypted, pad, decrypted);
+        assertEquals(2, report.failures(), report.toString());
+        for (BatchPipeline.FileResult result : report.files) {
+            if (result.path.equals(TRUNCATED) || result.path.equals(KEPT)) {
+                assertTrue(result.error.startsWith("File changed size since it was indexed"), result.error);
+            } else {
+                assertNull(result.error, result.path);
+            }
+        }
+        assertEquals("keep me", Files.readString(kept));
+        Map<String, byte[]> expected = new LinkedHashMap<>(files);
+        expected.remove(TRUNCATED);
+        expected.put(KEPT, "keep me".getBytes(StandardCharsets.UTF_8));
+        // no output for the truncated file and no temporary file anywhere in the tree
+        assertTreeEquals(expected, decrypted);
+    }
+
+    private static void assertTreeEquals(Map<String, byte[]> expected, Path root) throws IOException {
+        Map<String, byte[]> actual = readTree(root);
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, byte[]> file : expected.entrySet()) {
+            assertArrayEquals(file.getValue(), actual.get(file.getKey()), file.getKey());
+        }
+    }
+
+    private static void truncate(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    // Every regular file below root, by its path relative to root with / separators
+    private static Map<String, byte[]> readTree(Path root) throws IOException {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path file : walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                String relative = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                if (!relative.equals(BatchPipeline.INDEX_FILE)) {
+                    contents.put(relative, Files.readAllBytes(file));
+                }
+            }
+        }
+        return contents;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
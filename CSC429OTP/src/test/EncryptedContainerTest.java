@@ -0,0 +1,192 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * EncryptedContainerTest checks the chunk table and footer of the container format: ranges and whole files
+ * decrypt correctly, a footer or table that does not describe the file is refused when it is opened or read,
+ * and chunks that were moved, modified or given another tag never reach the caller.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+class EncryptedContainerTest {
+
+    private static final int CHUNK_SIZE = 100;
+    // ten full chunks and a short last one
+    private static final int PLAINTEXT_LENGTH = 10 * CHUNK_SIZE + 37;
+    private static final int CHUNKS = 11;
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(20);
+    private final byte[] plaintext = randomBytes(PLAINTEXT_LENGTH);
+    private final byte[] keyBytes = randomBytes(RecordCipher.KEY_LENGTH);
+    private Path input;
+
+    @BeforeEach
+    void writeInput() throws IOException {
+        input = Files.write(directory.resolve("plain.bin"), plaintext);
+    }
+
+    @Test
+    void rangesAndWholeFilesDecrypt() throws Exception {
+        Path container = encrypt();
+        try (EncryptedContainer opened = EncryptedContainer.open(container).unlock(key())) {
+            assertEquals(PLAINTEXT_LENGTH, opened.length());
+            assertEquals(CHUNKS, opened.chunks());
+            int[][] ranges = {
+                {0, 1}, {0, CHUNK_SIZE}, {99, 2}, {250, 500}, {PLAINTEXT_LENGTH - 37, 37}, {0, PLAINTEXT_LENGTH}
+            };
+            for (int[] range : ranges) {
+                assertArrayEquals(Arrays.copyOfRange(plaintext, range[0], range[0] + range[1]),
+                        opened.read(range[0], range[1]), "range at " + range[0]);
+            }
+            assertThrows(IllegalArgumentException.class, () -> opened.read(PLAINTEXT_LENGTH - 1, 2));
+            Path output = directory.resolve("plain.out");
+            opened.decryptTo(output, 3, Progress.NONE);
+            assertArrayEquals(plaintext, Files.readAllBytes(output));
+        }
+    }
+
+    @Test
+    void footerMustDescribeTheFile() throws Exception {
+        Path container = encrypt();
+        byte[] bytes = Files.readAllBytes(container);
+        int footer = bytes.length - EncryptedContainer.FOOTER_LENGTH;
+        // table offset, chunk count, plaintext length and the closing magic
+        for (int field : new int[] {footer + 7, footer + 15, footer + 23, bytes.length - 1}) {
+            byte[] damaged = bytes.clone();
+            damaged[field] ^= 0x01;
+            assertOpenRefused(damaged);
+        }
+    }
+
+    @Test
+    void truncatedContainersAreRefused() throws Exception {
+        byte[] bytes = Files.readAllBytes(encrypt());
+        long tableOffset = footer(bytes).getLong(0);
+        assertOpenRefused(Arrays.copyOf(bytes, bytes.length - 1));
+        assertOpenRefused(Arrays.copyOf(bytes, (int) tableOffset));
+        assertOpenRefused(Arrays.copyOf(bytes, EncryptedContainer.HEADER_LENGTH + 4));
+        // a whole table entry dropped, with the footer moved up to the new end
+        byte[] shorter = Arrays.copyOf(bytes, bytes.length - EncryptedContainer.ENTRY_LENGTH);
+        System.arraycopy(bytes, bytes.length - EncryptedContainer.FOOTER_LENGTH, shorter,
+                shorter.length - EncryptedContainer.FOOTER_LENGTH, EncryptedContainer.FOOTER_LENGTH);
+        assertOpenRefused(shorter);
+    }
+
+    // An entry pointing outside the chunk area or claiming another length is caught before anything is decrypted
+    @Test
+    void corruptTableEntriesAreRefused() throws Exception {
+        byte[] bytes = Files.readAllBytes(encrypt());
+        int entry = entryPosition(bytes, 3);
+        ByteBuffer outside = ByteBuffer.wrap(bytes.clone());
+        outside.putLong(entry, footer(bytes).getLong(0));
+        assertReadRefused(outside.array(), 3);
+        ByteBuffer longer = ByteBuffer.wrap(bytes.clone());
+        longer.putInt(entry + 8, CHUNK_SIZE + 1);
+        assertReadRefused(longer.array(), 3);
+        ByteBuffer before = ByteBuffer.wrap(bytes.clone());
+        before.putLong(entry, 0);
+        assertReadRefused(before.array(), 3);
+    }
+
+    // Swapping two entries keeps every offset and length plausible, but the chunk index is authenticated
+    @Test
+    void swappedChunksAreRefused() throws Exception {
+        byte[] bytes = Files.readAllBytes(encrypt());
+        byte[] swapped = bytes.clone();
+        int first = entryPosition(bytes, 2);
+        int second = entryPosition(bytes, 5);
+        System.arraycopy(bytes, first, swapped, second, EncryptedContainer.ENTRY_LENGTH);
+        System.arraycopy(bytes, second, swapped, first, EncryptedContainer.ENTRY_LENGTH);
+        assertReadRefused(swapped, 2);
+        assertReadRefused(swapped, 5);
+    }
+
+    // Only the chunks a read covers are verified, so damage elsewhere does not stop other ranges
+    @Test
+    void modifiedChunksAndTagsAreRefused() throws Exception {
+        byte[] bytes = Files.readAllBytes(encrypt());
+        long chunk4 = ByteBuffer.wrap(bytes).getLong(entryPosition(bytes, 4));
+        byte[] data = bytes.clone();
+        data[(int) chunk4 + 17] ^= 0x01;
+        assertReadRefused(data, 4);
+        byte[] tag = bytes.clone();
+        tag[entryPosition(bytes, 7) + 12] ^= 0x01;
+        assertReadRefused(tag, 7);
+        try (EncryptedContainer opened = EncryptedContainer.open(write(data)).unlock(key())) {
+            assertArrayEquals(Arrays.copyOfRange(plaintext, 0, 4 * CHUNK_SIZE), opened.read(0, 4 * CHUNK_SIZE));
+        }
+    }
+
+    @Test
+    void padContainersNeedTheirPadAndNeverUseItsIdBytes() throws Exception {
+        Path pad = Files.write(directory.resolve("key.pad"), randomBytes(4096));
+        Path other = Files.write(directory.resolve("other.pad"), randomBytes(4096));
+        Path container = directory.resolve("pad.c429");
+        assertThrows(IllegalArgumentException.class,
+                () -> EncryptedContainer.encrypt(pad, 0, CHUNK_SIZE, input, container, 2, Progress.NONE));
+        EncryptedContainer.encrypt(pad, PadLedger.ID_LENGTH, CHUNK_SIZE, input, container, 2, Progress.NONE);
+        try (EncryptedContainer opened = EncryptedContainer.open(container)) {
+            assertThrows(IllegalArgumentException.class, () -> opened.unlock(other));
+            assertThrows(IllegalArgumentException.class, () -> opened.unlock(key()));
+            assertArrayEquals(Arrays.copyOfRange(plaintext, 150, 450), opened.unlock(pad).read(150, 300));
+        }
+    }
+
+    private Path encrypt() throws IOException, GeneralSecurityException {
+        Path container = directory.resolve("data.c429");
+        EncryptedContainer.encrypt(RecordCipher.Algorithm.AES_256_GCM, key(), CHUNK_SIZE, input, container, 2,
+                Progress.NONE);
+        return container;
+    }
+
+    private CipherKey key() {
+        return CipherKey.raw(keyBytes.clone());
+    }
+
+    private Path write(byte[] bytes) throws IOException {
+        return Files.write(Files.createTempFile(directory, "damaged", ".c429"), bytes);
+    }
+
+    private void assertOpenRefused(byte[] bytes) throws IOException {
+        Path damaged = write(bytes);
+        assertThrows(GeneralSecurityException.class, () -> EncryptedContainer.open(damaged).close());
+    }
+
+    private void assertReadRefused(byte[] bytes, int chunk) throws Exception {
+        try (EncryptedContainer opened = EncryptedContainer.open(write(bytes)).unlock(key())) {
+            assertThrows(GeneralSecurityException.class, () -> opened.read((long) chunk * CHUNK_SIZE, 1),
+                    "chunk " + chunk);
+        }
+    }
+
+    private static ByteBuffer footer(byte[] bytes) {
+        return ByteBuffer.wrap(bytes, bytes.length - EncryptedContainer.FOOTER_LENGTH, EncryptedContainer.FOOTER_LENGTH)
+                .slice();
+    }
+
+    private static int entryPosition(byte[] bytes, int chunk) {
+        return (int) footer(bytes).getLong(0) + chunk * EncryptedContainer.ENTRY_LENGTH;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,125 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * PadLedgerTest checks that a pad's ledger never hands out the same byte twice: not to this process, not
+ * after records appended by another process, not for the bytes that identify the pad, and not after a
+ * writer crashed in the middle of a record.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+class PadLedgerTest {
+
+    private static final int PAD_LENGTH = 64 * 1024;
+    private static final int RECORD_SIZE = 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void nextRangesStartAfterTheIdAndNeverOverlap() throws IOException {
+        PadLedger ledger = PadLedger.forPad(newPad("next.pad"));
+        assertEquals(PadLedger.ID_LENGTH, ledger.reserveNext(100));
+        assertEquals(PadLedger.ID_LENGTH + 100, ledger.reserveNext(50));
+        assertEquals(PadLedger.ID_LENGTH + 150, ledger.nextFree());
+        assertTrue(ledger.isUsed(0, 1));
+    }
+
+    @Test
+    void reuseIsRefused() throws IOException {
+        PadLedger ledger = PadLedger.forPad(newPad("reuse.pad"));
+        ledger.reserve(500, 100);
+        assertThrows(IllegalStateException.class, () -> ledger.reserve(550, 10));
+        assertThrows(IllegalStateException.class, () -> ledger.reserve(400, 101));
+        assertThrows(IllegalStateException.class, () -> ledger.reserve(0, 10));
+        // ranges that only touch a used one are still free
+        ledger.reserve(600, 10);
+        ledger.reserve(490, 10);
+        assertEquals(610, ledger.nextFree());
+    }
+
+    @Test
+    void rangesPastTheEndOfThePadAreRefused() throws IOException {
+        PadLedger ledger = PadLedger.forPad(newPad("short.pad"));
+        assertThrows(IllegalArgumentException.class, () -> ledger.reserve(PAD_LENGTH - 10, 11));
+        assertThrows(IllegalArgumentException.class, () -> ledger.reserveNext(PAD_LENGTH));
+    }
+
+    // Another process reserves by appending to the log; the next reservation here must see it
+    @Test
+    void recordsAppendedByOthersAreHonored() throws IOException {
+        Path pad = newPad("shared.pad");
+        PadLedger ledger = PadLedger.forPad(pad);
+        ledger.reserve(100, 10);
+        appendToLog(pad, record(1000, 50));
+        assertThrows(IllegalStateException.class, () -> ledger.reserve(1020, 1));
+        assertEquals(1050, ledger.reserveNext(5));
+    }
+
+    // A writer that crashed mid-record leaves a torn tail, which is dropped so later records stay aligned
+    @Test
+    void tornTailIsTruncated() throws IOException {
+        Path pad = newPad("torn.pad");
+        byte[] torn = new byte[RECORD_SIZE - 5];
+        new Random(7).nextBytes(torn);
+        Files.write(log(pad), record(100, 10));
+        appendToLog(pad, torn);
+
+        PadLedger ledger = PadLedger.forPad(pad);
+        assertThrows(IllegalStateException.class, () -> ledger.reserve(105, 1));
+        ledger.reserve(2000, 10);
+        byte[] log = Files.readAllBytes(log(pad));
+        assertEquals(0, log.length % RECORD_SIZE);
+        ByteBuffer last = ByteBuffer.wrap(log, log.length - RECORD_SIZE, RECORD_SIZE);
+        assertEquals(2000, last.getLong());
+        assertEquals(10, last.getLong());
+        assertEquals(2010, ledger.nextFree());
+    }
+
+    // A link to a pad must reach the same ledger instead of locking the log a second time
+    @Test
+    void linksShareTheLedger() throws IOException {
+        Path pad = newPad("linked.pad");
+        Path link = directory.resolve("alias.pad");
+        try {
+            Files.createSymbolicLink(link, pad.getFileName());
+        } catch (UnsupportedOperationException | IOException e) {
+            Assumptions.abort("symbolic links are not available: " + e);
+        }
+        PadLedger ledger = PadLedger.forPad(pad);
+        assertSame(ledger, PadLedger.forPad(link));
+        ledger.reserve(300, 10);
+        assertThrows(IllegalStateException.class, () -> PadLedger.forPad(link).reserve(305, 10));
+    }
+
+    private Path newPad(String name) throws IOException {
+        byte[] bytes = new byte[PAD_LENGTH];
+        new Random(name.hashCode()).nextBytes(bytes);
+        return Files.write(directory.resolve(name), bytes);
+    }
+
+    private static Path log(Path pad) {
+        return pad.resolveSibling(pad.getFileName() + PadLedger.SUFFIX);
+    }
+
+    private static byte[] record(long offset, long length) {
+        return ByteBuffer.allocate(RECORD_SIZE).putLong(offset).putLong(length).array();
+    }
+
+    private static void appendToLog(Path pad, byte[] bytes) throws IOException {
+        Files.write(log(pad), bytes, StandardOpenOption.APPEND);
+    }
+}
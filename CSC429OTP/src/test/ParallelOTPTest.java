@@ -0,0 +1,90 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ParallelOTPTest checks that the fork/join engine writes exactly what the single-threaded OTPFileEngine
+ * writes, for inputs that end inside, at and across segment boundaries and for unaligned pad offsets,
+ * on pools of one and several threads, and that a pad that is too short leaves an existing output alone.
+ *
+ * @author Group Name [Members: Khalid Alahmadi, Omar Altamammi, Azzam Aljariwy]
+ * @version 1.0
+ */
+class ParallelOTPTest {
+
+    private static final int SEGMENT = ParallelOTP.SEGMENT_SIZE;
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(6);
+
+    @Test
+    void matchesTheSingleThreadedEngine() throws IOException {
+        byte[] padBytes = randomBytes(2 * SEGMENT + SEGMENT / 2 + 4096);
+        Path pad = Files.write(directory.resolve("key.pad"), padBytes);
+        int[] lengths = {0, 1, 1000, SEGMENT - 1, SEGMENT, SEGMENT + 1, 2 * SEGMENT + 12_345};
+        long[] offsets = {0, 7, 4093};
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            for (int length : lengths) {
+                byte[] plaintext = randomBytes(length);
+                Path input = Files.write(directory.resolve("plain.bin"), plaintext);
+                for (long offset : offsets) {
+                    String label = length + " bytes at pad offset " + offset;
+                    Path expected = directory.resolve("expected.bin");
+                    assertEquals(length, OTPFileEngine.encryptFile(input, pad, offset, expected));
+                    assertArrayEquals(xor(plaintext, padBytes, offset), Files.readAllBytes(expected), label);
+                    for (ForkJoinPool pool : new ForkJoinPool[] {single, several}) {
+                        Path actual = directory.resolve("actual.bin");
+                        assertEquals(length, ParallelOTP.encryptFile(input, pad, offset, actual, pool));
+                        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(actual), label);
+                        Path decrypted = directory.resolve("decrypted.bin");
+                        ParallelOTP.decryptFile(actual, pad, offset, decrypted, pool);
+                        assertArrayEquals(plaintext, Files.readAllBytes(decrypted), label);
+                    }
+                }
+            }
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+    }
+
+    @Test
+    void shortPadsAreRefusedWithoutTouchingTheOutput() throws IOException {
+        Path pad = Files.write(directory.resolve("short.pad"), randomBytes(1000));
+        Path input = Files.write(directory.resolve("plain.bin"), randomBytes(1001));
+        Path output = Files.writeString(directory.resolve("existing.bin"), "keep me");
+        assertThrows(IllegalArgumentException.class, () -> ParallelOTP.encryptFile(input, pad, 0, output));
+        assertThrows(IllegalArgumentException.class, () -> ParallelOTP.encryptFile(input, pad, 500, output));
+        assertEquals("keep me", Files.readString(output));
+        assertThrows(IllegalArgumentException.class, () -> ParallelOTP.encryptFile(input, pad, 0, input));
+        try (var files = Files.list(directory)) {
+            assertEquals(3, files.count(), "no temporary files are left");
+        }
+    }
+
+    private static byte[] xor(byte[] data, byte[] pad, long offset) {
+        byte[] result = new byte[data.length];
+        for (int i = 0; i < data.length; i++) {
+            result[i] = (byte) (data[i] ^ pad[(int) offset + i]);
+        }
+        return result;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}